@@ -0,0 +1,87 @@
+package com.example.shipmentTemporal.clients;
+
+import lombok.Getter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * A failed call to the roulette service, carrying what retry policy needs to know: the
+ * HTTP status (0 when no response was received) and the server's Retry-After hint.
+ */
+@Getter
+public class DownstreamException extends RuntimeException {
+
+    private static final Duration MAX_RETRY_AFTER = Duration.ofMinutes(1);
+
+    private final int statusCode;
+    private final Duration retryAfter;
+
+    public DownstreamException(String message, int statusCode, Duration retryAfter, Throwable cause) {
+        super(message, cause);
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+    }
+
+    public static DownstreamException fromResponse(String message, RestClientResponseException e) {
+        return fromResponse(message, e.getStatusCode().value(), e.getResponseHeaders(), e.getResponseBodyAsString(), e);
+    }
+
+    public static DownstreamException fromResponse(String message, WebClientResponseException e) {
+        return fromResponse(message, e.getStatusCode().value(), e.getHeaders(), e.getResponseBodyAsString(), e);
+    }
+
+    private static DownstreamException fromResponse(String message, int statusCode, HttpHeaders headers,
+                                                    String body, Throwable cause) {
+        return new DownstreamException(
+                message + ": " + statusCode + " " + body,
+                statusCode,
+                headers != null ? parseRetryAfter(headers.getFirst(HttpHeaders.RETRY_AFTER)) : null,
+                cause);
+    }
+
+    public static DownstreamException noResponse(String message, Throwable cause) {
+        return new DownstreamException(message + ": " + cause.getMessage(), 0, null, cause);
+    }
+
+    /**
+     * Client errors are permanent, except 408/429 which ask the caller to come back later.
+     */
+    public boolean isRetryable() {
+        return statusCode < 400 || statusCode >= 500 || statusCode == 408 || statusCode == 429;
+    }
+
+    public boolean isConflict() {
+        return statusCode == 409;
+    }
+
+    /**
+     * Parses a Retry-After value given either as delta-seconds or as an HTTP date. Returns
+     * null when the header is absent or unparseable; the result is capped at one minute.
+     */
+    static Duration parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        Duration delay;
+        try {
+            delay = Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException notSeconds) {
+            try {
+                ZonedDateTime retryAt = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                delay = Duration.between(ZonedDateTime.now(retryAt.getZone()), retryAt);
+            } catch (DateTimeParseException notDate) {
+                return null;
+            }
+        }
+        if (delay.isNegative()) {
+            return Duration.ZERO;
+        }
+        return delay.compareTo(MAX_RETRY_AFTER) > 0 ? MAX_RETRY_AFTER : delay;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.shipmentTemporal.clients;
+
+import com.example.shipmentTemporal.models.CreateShipmentRequest;
+import com.example.shipmentTemporal.models.CreateShipmentResponse;
+import com.example.shipmentTemporal.models.MoveRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+/**
+ * Non-blocking counterpart of {@link ShipmentClient} for the mutating roulette calls. Errors
+ * surface as the same {@link DownstreamException}s and calls are recorded under the same
+ * {@code roulette.client.requests} timer, so callers and dashboards can treat both alike.
+ */
+@Slf4j
+@Component
+public class ReactiveShipmentClient {
+
+    @Autowired
+    private WebClient rouletteWebClient;
+    @Value("${roulette-server.baseUrl}")
+    private String baseUrl;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public Mono<Integer> createShipment(CreateShipmentRequest request) {
+        return timed("create", post("/shipments", request)
+                .flatMap(response -> {
+                    if (response.isSuccess() && response.getShipment() != null) {
+                        log.info("Shipment created successfully with ID: {}", response.getShipment().getId());
+                        return Mono.just(response.getShipment().getId());
+                    }
+                    return Mono.error(new DownstreamException(
+                            "Failed to create shipment: " + response.getError(), 200, null, null));
+                })
+                .onErrorMap(mapErrors("Failed to create shipment")));
+    }
+
+    public Mono<Void> moveShipment(MoveRequest request) {
+        log.info("Moving shipment {} from {} to {}", request.getShipmentId(), request.getFrom(), request.getTo());
+        return timed("move", post("/move", request)
+                .flatMap(response -> {
+                    if (!response.isSuccess()) {
+                        return Mono.<Void>error(new DownstreamException(
+                                "Move failed: " + response.getError(), 200, null, null));
+                    }
+                    log.info("Move successful from {} to {}", request.getFrom(), request.getTo());
+                    return Mono.<Void>empty();
+                })
+                .onErrorMap(mapErrors("Failed to move shipment")));
+    }
+
+    private Mono<CreateShipmentResponse> post(String path, Object body) {
+        return rouletteWebClient.post()
+                .uri(baseUrl + path)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .retrieve()
+                .bodyToMono(CreateShipmentResponse.class)
+                .switchIfEmpty(Mono.error(() -> new DownstreamException("Empty response from " + path, 200, null, null)));
+    }
+
+    private static Function<Throwable, Throwable> mapErrors(String message) {
+        return e -> {
+            if (e instanceof DownstreamException) {
+                return e;
+            }
+            log.error(message, e);
+            if (e instanceof WebClientResponseException response) {
+                return DownstreamException.fromResponse(message, response);
+            }
+            if (e instanceof WebClientRequestException) {
+                return DownstreamException.noResponse(message, e);
+            }
+            return e;
+        };
+    }
+
+    /**
+     * Records {@code roulette.client.requests} once the call completes, tagged like the
+     * blocking client's timings.
+     */
+    private <T> Mono<T> timed(String operation, Mono<T> call) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return call
+                    .doOnSuccess(result -> stop(sample, operation, "200"))
+                    .doOnError(e -> stop(sample, operation, e instanceof DownstreamException downstream
+                            && downstream.getStatusCode() != 0 ? String.valueOf(downstream.getStatusCode()) : "none"));
+        });
+    }
+
+    private void stop(Timer.Sample sample, String operation, String status) {
+        sample.stop(Timer.builder("roulette.client.requests")
+                .description("Calls to the roulette service")
+                .tag("operation", operation)
+                .tag("status", status)
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.shipmentTemporal.clients;
+
+import com.example.shipmentTemporal.models.RouteSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches the downstream route so that starting a shipment does not cost a GET /route.
+ * Entries live for {@code ttl}; once an entry is older than {@code ttl - refreshAhead} a
+ * background reload is triggered while the current entry keeps being served. Concurrent
+ * misses share a single in-flight load.
+ */
+@Slf4j
+@Component
+public class RouteProvider {
+
+    private final ShipmentClient shipmentClient;
+    private final long ttlNanos;
+    private final long refreshAfterNanos;
+    private final LongSupplier nanoClock;
+
+    private final AtomicReference<CachedRoute> cached = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<RouteSnapshot>> inFlight = new AtomicReference<>();
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "route-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter loadFailures;
+
+    @Autowired
+    public RouteProvider(ShipmentClient shipmentClient,
+                         MeterRegistry meterRegistry,
+                         @Value("${roulette-server.route-cache.ttl:5m}") Duration ttl,
+                         @Value("${roulette-server.route-cache.refresh-ahead:1m}") Duration refreshAhead) {
+        this(shipmentClient, meterRegistry, ttl, refreshAhead, System::nanoTime);
+    }
+
+    RouteProvider(ShipmentClient shipmentClient, MeterRegistry meterRegistry,
+                  Duration ttl, Duration refreshAhead, LongSupplier nanoClock) {
+        this.shipmentClient = shipmentClient;
+        this.ttlNanos = ttl.toNanos();
+        this.refreshAfterNanos = Math.max(0, ttl.minus(refreshAhead).toNanos());
+        this.nanoClock = nanoClock;
+        this.hits = Counter.builder("roulette.route.cache.requests").tag("result", "hit")
+                .description("Route lookups served from the cache").register(meterRegistry);
+        this.misses = Counter.builder("roulette.route.cache.requests").tag("result", "miss")
+                .description("Route lookups that had to wait for a load").register(meterRegistry);
+        this.loadFailures = Counter.builder("roulette.route.cache.load.failures")
+                .description("Route loads that failed").register(meterRegistry);
+    }
+
+    public RouteSnapshot getRoute() {
+        CachedRoute current = cached.get();
+        if (current != null && isFresh(current)) {
+            hits.increment();
+            if (nanoClock.getAsLong() - current.loadedAt() >= refreshAfterNanos && inFlight.get() == null) {
+                refreshExecutor.execute(this::refresh);
+            }
+            return current.snapshot();
+        }
+
+        misses.increment();
+        try {
+            return load().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Drops the cached route so the next lookup reloads it.
+     */
+    public void invalidate() {
+        cached.set(null);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private void refresh() {
+        try {
+            load().join();
+        } catch (CompletionException e) {
+            log.warn("Background route refresh failed, serving cached route until it expires", e.getCause());
+        }
+    }
+
+    private CompletableFuture<RouteSnapshot> load() {
+        CompletableFuture<RouteSnapshot> load = new CompletableFuture<>();
+        CompletableFuture<RouteSnapshot> existing = inFlight.compareAndExchange(null, load);
+        if (existing != null) {
+            return existing;
+        }
+
+        try {
+            CachedRoute current = cached.get();
+            if (current != null && isFresh(current) && nanoClock.getAsLong() - current.loadedAt() < refreshAfterNanos) {
+                load.complete(current.snapshot());
+                return load;
+            }
+
+            RouteSnapshot snapshot = RouteSnapshot.of(shipmentClient.getRoute());
+            CachedRoute previous = cached.getAndSet(new CachedRoute(snapshot, nanoClock.getAsLong()));
+            if (previous != null && !previous.snapshot().getVersion().equals(snapshot.getVersion())) {
+                log.info("Route changed from version {} to {}", previous.snapshot().getVersion(), snapshot.getVersion());
+            }
+            load.complete(snapshot);
+        } catch (RuntimeException e) {
+            loadFailures.increment();
+            load.completeExceptionally(e);
+        } finally {
+            inFlight.set(null);
+        }
+        return load;
+    }
+
+    private boolean isFresh(CachedRoute route) {
+        return nanoClock.getAsLong() - route.loadedAt() < ttlNanos;
+    }
+
+    private record CachedRoute(RouteSnapshot snapshot, long loadedAt) {
+    }
+}
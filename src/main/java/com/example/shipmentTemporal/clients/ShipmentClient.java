@@ -1,8 +1,11 @@
 package com.example.shipmentTemporal.clients;
 
 import com.example.shipmentTemporal.models.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +17,8 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestTemplate;
 
 @Slf4j
@@ -24,8 +29,57 @@ public class ShipmentClient {
     private RestTemplate restTemplate;
     @Value("${roulette-server.baseUrl}")
     private String baseUrl;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     public Integer createShipment(CreateShipmentRequest request) {
+        return timed("create", () -> doCreateShipment(request));
+    }
+
+    public void moveShipment(MoveRequest request) {
+        timed("move", () -> {
+            doMoveShipment(request);
+            return null;
+        });
+    }
+
+    public List<String> getRoute() {
+        return timed("route", this::doGetRoute);
+    }
+
+    public WaypointOccupancy getWaypointOccupancy(String city) {
+        return timed("waypoint", () -> doGetWaypointOccupancy(city));
+    }
+
+    /**
+     * Route index the roulette service has the shipment at.
+     */
+    public int getShipmentPosition(Integer shipmentId) {
+        return timed("shipment", () -> doGetShipmentPosition(shipmentId));
+    }
+
+    /**
+     * Records {@code roulette.client.requests} per operation, tagged with the HTTP status of
+     * failed calls ("none" when no response arrived).
+     */
+    private <T> T timed(String operation, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String status = "200";
+        try {
+            return call.get();
+        } catch (DownstreamException e) {
+            status = e.getStatusCode() == 0 ? "none" : String.valueOf(e.getStatusCode());
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("roulette.client.requests")
+                    .description("Calls to the roulette service")
+                    .tag("operation", operation)
+                    .tag("status", status)
+                    .register(meterRegistry));
+        }
+    }
+
+    private Integer doCreateShipment(CreateShipmentRequest request) {
         
         try {
             HttpHeaders headers = getBasicHttpHeaders();
@@ -40,19 +94,23 @@ public class ShipmentClient {
                 return response.getShipment().getId();
             }
             
-            throw new RuntimeException("Failed to create shipment: " +
-                (response != null ? response.getError() : "Unknown error"));
+            throw new DownstreamException("Failed to create shipment: " +
+                (response != null ? response.getError() : "Unknown error"),
+                responseEntity.getStatusCode().value(), null, null);
                 
         } catch (HttpClientErrorException.Conflict e) {
             log.error("Shipment already exists");
-            throw new RuntimeException("Failed to create shipment: " + e.getMessage(), e);
-        } catch (Exception e) {
+            throw DownstreamException.fromResponse("Failed to create shipment", e);
+        } catch (RestClientResponseException e) {
             log.error("Error creating shipment", e);
-            throw new RuntimeException("Failed to create shipment: " + e.getMessage(), e);
+            throw DownstreamException.fromResponse("Failed to create shipment", e);
+        } catch (ResourceAccessException e) {
+            log.error("Error creating shipment", e);
+            throw DownstreamException.noResponse("Failed to create shipment", e);
         }
     }
 
-    public void moveShipment(MoveRequest request) {
+    private void doMoveShipment(MoveRequest request) {
         log.info("Moving shipment {} from {} to {}", request.getShipmentId(), request.getFrom(), request.getTo());
         
         try {
@@ -65,18 +123,22 @@ public class ShipmentClient {
             CreateShipmentResponse response = responseEntity.getBody();
             
             if (response == null || !response.isSuccess()) {
-                throw new RuntimeException("Move failed: " +
-                    (response != null ? response.getError() : "No response"));
+                throw new DownstreamException("Move failed: " +
+                    (response != null ? response.getError() : "No response"),
+                    responseEntity.getStatusCode().value(), null, null);
             }
             
             log.info("Move successful from {} to {}", request.getFrom(), request.getTo());
-        } catch (Exception e) {
+        } catch (RestClientResponseException e) {
             log.error("Error moving shipment", e);
-            throw new RuntimeException("Failed to move shipment: " + e.getMessage(), e);
+            throw DownstreamException.fromResponse("Failed to move shipment", e);
+        } catch (ResourceAccessException e) {
+            log.error("Error moving shipment", e);
+            throw DownstreamException.noResponse("Failed to move shipment", e);
         }
     }
 
-    public List<String> getRoute() {
+    private List<String> doGetRoute() {
         log.info("Fetching route from external API");
         
         try {
@@ -92,10 +154,62 @@ public class ShipmentClient {
                 return route;
             }
             
-            throw new RuntimeException("Failed to fetch route: empty response");
-        } catch (Exception e) {
+            throw new DownstreamException("Failed to fetch route: empty response",
+                responseEntity.getStatusCode().value(), null, null);
+        } catch (RestClientResponseException e) {
+            log.error("Error fetching route from external API", e);
+            throw DownstreamException.fromResponse("Failed to fetch route", e);
+        } catch (ResourceAccessException e) {
             log.error("Error fetching route from external API", e);
-            throw new RuntimeException("Failed to fetch route: " + e.getMessage(), e);
+            throw DownstreamException.noResponse("Failed to fetch route", e);
+        }
+    }
+
+    private WaypointOccupancy doGetWaypointOccupancy(String city) {
+        try {
+            ResponseEntity<WaypointResponse> responseEntity = restTemplate.getForEntity(
+                    baseUrl + "/waypoints/city/{city}", WaypointResponse.class, city);
+            WaypointResponse response = responseEntity.getBody();
+
+            if (response != null && response.isSuccess() && response.getWaypoint() != null) {
+                return WaypointOccupancy.builder()
+                        .city(response.getWaypoint().getCity())
+                        .occupiedByShipmentId(response.getWaypoint().getOccupiedByShipmentId())
+                        .build();
+            }
+
+            throw new DownstreamException("Failed to fetch waypoint " + city + ": " +
+                (response != null ? response.getError() : "empty response"),
+                responseEntity.getStatusCode().value(), null, null);
+        } catch (RestClientResponseException e) {
+            log.error("Error fetching waypoint {}", city, e);
+            throw DownstreamException.fromResponse("Failed to fetch waypoint " + city, e);
+        } catch (ResourceAccessException e) {
+            log.error("Error fetching waypoint {}", city, e);
+            throw DownstreamException.noResponse("Failed to fetch waypoint " + city, e);
+        }
+    }
+
+    private int doGetShipmentPosition(Integer shipmentId) {
+        try {
+            ResponseEntity<CreateShipmentResponse> responseEntity = restTemplate.getForEntity(
+                    baseUrl + "/shipments/{id}", CreateShipmentResponse.class, shipmentId);
+            CreateShipmentResponse response = responseEntity.getBody();
+
+            if (response != null && response.isSuccess() && response.getShipment() != null
+                    && response.getShipment().getCurrentIdx() != null) {
+                return response.getShipment().getCurrentIdx();
+            }
+
+            throw new DownstreamException("Failed to fetch shipment " + shipmentId + ": " +
+                (response != null ? response.getError() : "empty response"),
+                responseEntity.getStatusCode().value(), null, null);
+        } catch (RestClientResponseException e) {
+            log.error("Error fetching shipment {}", shipmentId, e);
+            throw DownstreamException.fromResponse("Failed to fetch shipment " + shipmentId, e);
+        } catch (ResourceAccessException e) {
+            log.error("Error fetching shipment {}", shipmentId, e);
+            throw DownstreamException.noResponse("Failed to fetch shipment " + shipmentId, e);
         }
     }
 
@@ -1,13 +1,155 @@
 package com.example.shipmentTemporal.configs;
 
+import com.example.shipmentTemporal.models.ShipmentWorkflowSettings;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.netty.channel.ChannelOption;
+import io.temporal.client.ActivityCompletionClient;
+import io.temporal.client.WorkflowClient;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 @Configuration
+@EnableConfigurationProperties({RouletteHttpProperties.class, TaskQueueProperties.class})
 public class AppConfig {
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(CloseableHttpClient rouletteHttpClient, RouletteHttpProperties properties) {
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(rouletteHttpClient);
+        requestFactory.setConnectionRequestTimeout(properties.getConnectionRequestTimeout());
+        requestFactory.setReadTimeout(properties.getReadTimeout());
+        return new RestTemplate(requestFactory);
+    }
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager rouletteConnectionManager(RouletteHttpProperties properties) {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(properties.getMaxConnections())
+                .setMaxConnPerRoute(properties.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(properties.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(properties.getReadTimeout()))
+                        .setValidateAfterInactivity(TimeValue.of(properties.getValidateAfterInactivity()))
+                        .build())
+                .build();
+    }
+
+    /**
+     * Keeps connections alive for the server-advertised duration, capped at the configured
+     * keep-alive, and evicts connections that sat idle longer than the idle timeout.
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient rouletteHttpClient(PoolingHttpClientConnectionManager rouletteConnectionManager,
+                                                  RouletteHttpProperties properties) {
+        TimeValue maxKeepAlive = TimeValue.of(properties.getKeepAlive());
+        return HttpClients.custom()
+                .setConnectionManager(rouletteConnectionManager)
+                .setKeepAliveStrategy((response, context) -> DefaultConnectionKeepAliveStrategy.INSTANCE
+                        .getKeepAliveDuration(response, context).min(maxKeepAlive))
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(properties.getIdleTimeout()))
+                .build();
+    }
+
+    /**
+     * Reactor Netty based client for {@code ReactiveShipmentClient}, pooled and timed out like
+     * the blocking client: the read timeout bounds the wait for response headers.
+     */
+    @Bean
+    public WebClient rouletteWebClient(RouletteHttpProperties properties) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("roulette")
+                .maxConnections(properties.getMaxConnections())
+                .pendingAcquireTimeout(properties.getConnectionRequestTimeout())
+                .maxIdleTime(properties.getIdleTimeout())
+                .maxLifeTime(properties.getKeepAlive())
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                .responseTimeout(properties.getReadTimeout());
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    /**
+     * Publishes leased/available/pending/max gauges for the roulette connection pool.
+     */
+    @Bean
+    public MeterBinder rouletteConnectionPoolMetrics(PoolingHttpClientConnectionManager rouletteConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(rouletteConnectionManager, "roulette");
+    }
+
+    /**
+     * Completes activities that returned without a result (see AsyncShipmentActivityImpl).
+     */
+    @Bean
+    public ActivityCompletionClient activityCompletionClient(WorkflowClient workflowClient) {
+        return workflowClient.newActivityCompletionClient();
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "shipment.workflow")
+    public ShipmentWorkflowSettings shipmentWorkflowSettings(TaskQueueProperties taskQueues) {
+        ShipmentWorkflowSettings settings = new ShipmentWorkflowSettings();
+        settings.setActivityTaskQueue(taskQueues.getActivity());
+        settings.setCompensationTaskQueue(taskQueues.getCompensation());
+        return settings;
+    }
+
+    /**
+     * A local activity that times out while its roulette call is still in flight is handed to
+     * the activity queue, which repeats a move that may have gone through in the meantime. The
+     * repeat is then rejected with 409 and the workflow compensates a hop that succeeded, so
+     * with local activities on, startup fails unless each local attempt outlasts the HTTP client.
+     */
+    @Bean
+    public SmartInitializingSingleton localActivityTimeoutCheck(ShipmentWorkflowSettings settings,
+                                                                RouletteHttpProperties properties) {
+        return () -> checkLocalActivityTimeout(settings, properties);
+    }
+
+    static void checkLocalActivityTimeout(ShipmentWorkflowSettings settings, RouletteHttpProperties properties) {
+        if (settings.isLocalActivities() && settings.getLocalActivityTimeout().compareTo(properties.longestCall()) <= 0) {
+            throw new IllegalStateException("shipment.workflow.local-activity-timeout (" + settings.getLocalActivityTimeout()
+                    + ") must exceed the longest roulette call (" + properties.longestCall()
+                    + ": connection-request, connect and read timeouts of roulette-server.http)");
+        }
+    }
+
+    /**
+     * Bounded pool for blocking WorkflowClient calls (workflow starts, result polls) issued
+     * on behalf of HTTP requests, so a large batch cannot open unbounded gRPC calls. With
+     * virtual threads enabled the pool keeps its bound but its workers are virtual threads.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService workflowClientExecutor(@Value("${shipment.workflow-client.parallelism:64}") int parallelism,
+                                                  @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        ThreadFactory threadFactory = virtualThreads
+                ? new VirtualThreadTaskExecutor("workflow-client-").getVirtualThreadFactory()
+                : new CustomizableThreadFactory("workflow-client-");
+        return Executors.newFixedThreadPool(parallelism, threadFactory);
     }
 }
@@ -0,0 +1,25 @@
+package com.example.shipmentTemporal.configs;
+
+import com.uber.m3.tally.RootScopeBuilder;
+import com.uber.m3.tally.Scope;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.temporal.common.reporter.MicrometerClientStatsReporter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Routes the Temporal SDK's metrics (and the workflow's own, recorded through
+     * Workflow.getMetricsScope()) into the Spring MeterRegistry. The starter's own
+     * MetricsScopeAutoConfiguration orders itself after a Boot 3 class and never matches on
+     * Boot 4; the bean name is the one the starter looks up.
+     */
+    @Bean(name = "temporalMetricsScope", destroyMethod = "close")
+    public Scope temporalMetricsScope(MeterRegistry meterRegistry) {
+        return new RootScopeBuilder()
+                .reporter(new MicrometerClientStatsReporter(meterRegistry))
+                .reportEvery(com.uber.m3.util.Duration.ofSeconds(10));
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.shipmentTemporal.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Connection pool and timeout settings for the HTTP client that talks to the roulette
+ * service. The read timeout should stay well below the activity StartToCloseTimeout so a
+ * hung downstream fails the attempt instead of holding the activity slot.
+ */
+@Data
+@ConfigurationProperties(prefix = "roulette-server.http")
+public class RouletteHttpProperties {
+    private int maxConnections = 200;
+    private int maxConnectionsPerRoute = 100;
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    private Duration readTimeout = Duration.ofSeconds(10);
+    private Duration connectionRequestTimeout = Duration.ofSeconds(2);
+    private Duration idleTimeout = Duration.ofSeconds(30);
+    private Duration keepAlive = Duration.ofSeconds(30);
+    private Duration validateAfterInactivity = Duration.ofSeconds(2);
+
+    /**
+     * Longest a single roulette call can take before the client gives up on it: waiting for a
+     * pooled connection, connecting and reading the response.
+     */
+    public Duration longestCall() {
+        return connectionRequestTimeout.plus(connectTimeout).plus(readTimeout);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.shipmentTemporal.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Names of the Temporal task queues. Worker sizing for each queue lives under
+ * {@code spring.temporal.workers}, keyed by the same names.
+ */
+@Data
+@ConfigurationProperties(prefix = "shipment.task-queues")
+public class TaskQueueProperties {
+    private String workflow = "shipment-workflow-queue";
+    private String activity = "shipment-activity-queue";
+    /**
+     * Rollbacks only, so they never wait behind forward moves during a burst of new shipments.
+     */
+    private String compensation = "shipment-compensation-queue";
+}
@@ -1,22 +1,93 @@
 package com.example.shipmentTemporal.controller;
 
+import com.example.shipmentTemporal.models.AuditEvent;
 import com.example.shipmentTemporal.models.AuditTrailResponse;
+import com.example.shipmentTemporal.models.BatchShipmentRequest;
+import com.example.shipmentTemporal.models.BatchShipmentResponse;
 import com.example.shipmentTemporal.models.ShipmentRequest;
+import com.example.shipmentTemporal.models.ShipmentListResponse;
 import com.example.shipmentTemporal.models.ShipmentResponse;
+import com.example.shipmentTemporal.models.ShipmentSearchFilter;
+import com.example.shipmentTemporal.models.ShipmentStatus;
+import com.example.shipmentTemporal.models.StartMilestone;
 import com.example.shipmentTemporal.service.ShipmentService;
+import com.example.shipmentTemporal.service.audit.AuditEventStream;
 import io.micrometer.common.util.StringUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
 
 @Slf4j
 @RestController
 @RequestMapping("/api/shipments")
 @RequiredArgsConstructor
 public class ShipmentController {
+
+    private static final Set<ShipmentStatus> TERMINAL_STATUSES = EnumSet.of(ShipmentStatus.DELIVERED, ShipmentStatus.FAILED);
+    private static final Pattern CITY_NAME = Pattern.compile("[\\p{L}\\p{N} .-]+");
     
     private final ShipmentService shipmentService;
+    private final AuditEventStream auditEventStream;
+
+    @Value("${shipment.result.max-wait-seconds:60}")
+    private long maxResultWaitSeconds;
+
+    @Value("${shipment.start-batch.max-size:5000}")
+    private int maxBatchSize;
+
+    @Value("${shipment.audit-projection.max-page-size:1000}")
+    private int maxAuditPageSize;
+
+    @Value("${shipment.list.max-page-size:1000}")
+    private int maxListPageSize;
+
+    @Value("${shipment.audit-stream.keep-alive:15s}")
+    private Duration auditStreamKeepAlive;
+
+    @Value("${shipment.audit-stream.max-duration:80s}")
+    private Duration auditStreamMaxDuration;
+
+    /**
+     * Lists shipments through the visibility API, filtered on the shipment search attributes.
+     */
+    @GetMapping
+    public ResponseEntity<ShipmentListResponse> listShipments(
+            @RequestParam(required = false) ShipmentStatus status,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) Integer minRetryCycle,
+            @RequestParam(required = false) Integer minCompensations,
+            @RequestParam(required = false) Boolean running,
+            @RequestParam(defaultValue = "50") int pageSize,
+            @RequestParam(required = false) String pageToken) {
+        if (city != null && !CITY_NAME.matcher(city).matches()) {
+            return ResponseEntity.badRequest()
+                .body(ShipmentListResponse.builder()
+                    .success(false)
+                    .message("Invalid city: " + city)
+                    .build());
+        }
+        ShipmentSearchFilter filter = ShipmentSearchFilter.builder()
+            .status(status)
+            .city(city)
+            .minRetryCycle(minRetryCycle)
+            .minCompensations(minCompensations)
+            .running(running)
+            .build();
+        int boundedPageSize = Math.max(1, Math.min(pageSize, maxListPageSize));
+        return ResponseEntity.ok(shipmentService.listShipments(filter, boundedPageSize, pageToken));
+    }
 
     @PostMapping("/start")
     public ResponseEntity<ShipmentResponse> startShipment(@RequestBody ShipmentRequest request) {
@@ -32,16 +103,93 @@ public class ShipmentController {
         return ResponseEntity.ok(shipmentService.startShipment(request));
     }
 
+    /**
+     * Starts a shipment and answers once it reached {@code waitFor} (CREATED or FIRST_HOP) with
+     * its shipment ID and route, or with 202 and its current hop after {@code waitSeconds}.
+     */
+    @PostMapping(path = "/start", params = "waitFor")
+    public CompletableFuture<ResponseEntity<ShipmentResponse>> startShipmentAndWait(
+            @RequestBody ShipmentRequest request,
+            @RequestParam StartMilestone waitFor,
+            @RequestParam(defaultValue = "30") long waitSeconds) {
+        if (StringUtils.isBlank(request.getShipmentHandle())) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                .body(ShipmentResponse.builder()
+                    .success(false)
+                    .message("Shipment handle is required")
+                    .build()));
+        }
+        long boundedWait = Math.max(1, Math.min(waitSeconds, maxResultWaitSeconds));
+        return shipmentService.startShipmentAndWait(request, waitFor, boundedWait)
+            .thenApply(response -> !response.isSuccess() || response.getShipmentId() != null
+                ? ResponseEntity.ok(response)
+                : ResponseEntity.status(HttpStatus.ACCEPTED).body(response));
+    }
+
+    @PostMapping("/start-batch")
+    public ResponseEntity<BatchShipmentResponse> startShipments(@RequestBody BatchShipmentRequest request) {
+        if (request.getShipmentHandles() == null || request.getShipmentHandles().isEmpty()) {
+            return ResponseEntity.badRequest()
+                .body(BatchShipmentResponse.builder()
+                    .success(false)
+                    .message("At least one shipment handle is required")
+                    .build());
+        }
+        if (request.getShipmentHandles().size() > maxBatchSize) {
+            return ResponseEntity.badRequest()
+                .body(BatchShipmentResponse.builder()
+                    .success(false)
+                    .message("Batch exceeds the maximum of " + maxBatchSize + " shipment handles")
+                    .build());
+        }
+        log.info("Received batch shipment request with {} handles", request.getShipmentHandles().size());
+
+        return ResponseEntity.ok(shipmentService.startShipments(request));
+    }
+
     @GetMapping("/{workflowId}/result")
-    public ResponseEntity<ShipmentResponse> getWorkflowResult(@PathVariable String workflowId) {
-        log.info("Fetching result for workflow: {}", workflowId);
-        ShipmentResponse response = shipmentService.getWorkflowResult(workflowId);
-        return ResponseEntity.ok(response);
+    public CompletableFuture<ResponseEntity<ShipmentResponse>> getWorkflowResult(
+            @PathVariable String workflowId,
+            @RequestParam(defaultValue = "30") long waitSeconds) {
+        long boundedWait = Math.max(1, Math.min(waitSeconds, maxResultWaitSeconds));
+        log.info("Fetching result for workflow: {} (waitSeconds={})", workflowId, boundedWait);
+        return shipmentService.getWorkflowResult(workflowId, boundedWait)
+            .thenApply(response -> TERMINAL_STATUSES.contains(response.getStatus())
+                ? ResponseEntity.ok(response)
+                : ResponseEntity.status(HttpStatus.ACCEPTED).body(response));
     }
 
     @GetMapping("/{workflowId}/audit-trail")
-    public ResponseEntity<AuditTrailResponse> getAuditTrail(@PathVariable String workflowId) {
-        log.info("Fetching audit trail for workflow: {}", workflowId);
-        return ResponseEntity.ok(shipmentService.getAuditTrail(workflowId));
+    public ResponseEntity<AuditTrailResponse> getAuditTrail(
+            @PathVariable String workflowId,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "100") int limit) {
+        int boundedLimit = Math.max(1, Math.min(limit, maxAuditPageSize));
+        log.info("Fetching audit trail for workflow: {} (offset={}, limit={})", workflowId, offset, boundedLimit);
+        return ResponseEntity.ok(shipmentService.getAuditTrail(workflowId, Math.max(0, offset), boundedLimit));
+    }
+
+    /**
+     * Streams audit events as Server-Sent Events, starting at {@code offset}. Each event carries
+     * its trail position as id, so a reconnecting client resumes after it via Last-Event-ID.
+     * The stream ends after delivery, or after {@code max-duration} to stay within the async
+     * request timeout; clients then reconnect.
+     */
+    @GetMapping(path = "/{workflowId}/audit-stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<AuditEvent>> streamAuditTrail(
+            @PathVariable String workflowId,
+            @RequestParam(defaultValue = "0") long offset,
+            @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+        long from = lastEventId != null ? lastEventId + 1 : Math.max(0, offset);
+        log.info("Streaming audit trail for workflow: {} from {}", workflowId, from);
+        Flux<ServerSentEvent<AuditEvent>> events = auditEventStream.stream(workflowId, from)
+            .map(sequenced -> ServerSentEvent.builder(sequenced.event())
+                .id(String.valueOf(sequenced.sequence()))
+                .event(sequenced.event().getEventType().name())
+                .build());
+        Flux<ServerSentEvent<AuditEvent>> keepAlive = Flux.interval(auditStreamKeepAlive)
+            .map(tick -> ServerSentEvent.<AuditEvent>builder().comment("keep-alive").build());
+        return events.publish(shared -> Flux.merge(shared, keepAlive.takeUntilOther(shared.then())))
+            .take(auditStreamMaxDuration);
     }
 }
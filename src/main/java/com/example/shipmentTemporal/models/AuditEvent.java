@@ -19,53 +19,62 @@ public class AuditEvent {
     private String reason;
     private Instant timestamp;
 
-    public static AuditEvent created(String shipmentHandle) {
+    public static AuditEvent created(String shipmentHandle, Instant timestamp) {
         return AuditEvent.builder()
                 .eventType(AuditEventType.CREATED)
                 .message(String.format("Shipment '%s' created", shipmentHandle))
-                .timestamp(Instant.now())
+                .timestamp(timestamp)
                 .build();
     }
 
-    public static AuditEvent moved(String from, String to) {
+    public static AuditEvent moved(String from, String to, Instant timestamp) {
         return AuditEvent.builder()
                 .eventType(AuditEventType.MOVED)
                 .message(String.format("Moved from %s to %s", from, to))
                 .from(from)
                 .to(to)
-                .timestamp(Instant.now())
+                .timestamp(timestamp)
                 .build();
     }
 
-    public static AuditEvent failed(String from, String to, String reason) {
+    public static AuditEvent failed(String from, String to, String reason, Instant timestamp) {
         return AuditEvent.builder()
                 .eventType(AuditEventType.FAILED)
                 .message(String.format("Failed to move from %s to %s", from, to))
                 .from(from)
                 .to(to)
                 .reason(reason)
-                .timestamp(Instant.now())
+                .timestamp(timestamp)
                 .build();
     }
 
-    public static AuditEvent compensated(String from, String to, String reason) {
+    public static AuditEvent compensated(String from, String to, String reason, Instant timestamp) {
         return AuditEvent.builder()
                 .eventType(AuditEventType.COMPENSATED)
                 .message(String.format("Compensated: rolled back from %s to %s", from, to))
                 .from(from)
                 .to(to)
                 .reason(reason)
-                .timestamp(Instant.now())
+                .timestamp(timestamp)
                 .build();
     }
 
-    public static AuditEvent completed(String from, String to) {
+    public static AuditEvent completed(String from, String to, Instant timestamp) {
         return AuditEvent.builder()
                 .eventType(AuditEventType.COMPLETED)
                 .message(String.format("Shipment completed from %s to %s", from, to))
                 .from(from)
                 .to(to)
-                .timestamp(Instant.now())
+                .timestamp(timestamp)
+                .build();
+    }
+
+    public static AuditEvent rolledUp(int moves, int failures, int compensations, Instant timestamp) {
+        return AuditEvent.builder()
+                .eventType(AuditEventType.ROLLED_UP)
+                .message(String.format("Rolled up %d earlier events: %d moves, %d failures, %d compensations",
+                        moves + failures + compensations, moves, failures, compensations))
+                .timestamp(timestamp)
                 .build();
     }
 }
\ No newline at end of file
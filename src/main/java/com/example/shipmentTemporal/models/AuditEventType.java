@@ -5,5 +5,6 @@ public enum AuditEventType {
     MOVED,
     FAILED,
     COMPENSATED,
-    COMPLETED;
+    COMPLETED,
+    ROLLED_UP;
 }
\ No newline at end of file
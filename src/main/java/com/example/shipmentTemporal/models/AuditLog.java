@@ -0,0 +1,216 @@
+package com.example.shipmentTemporal.models;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact, bounded audit trail kept inside the shipment workflow. Events are stored as
+ * parallel primitive arrays (type code, hop indices into the route, interned reason id,
+ * epoch millis) and only rendered into {@link AuditEvent}s when the trail is queried.
+ * <p>
+ * Once more than {@code maxEvents} events are held, the oldest ones after CREATED are folded
+ * into per-type counters that render as a single ROLLED_UP event, so a shipment stuck in a
+ * fail/compensate loop keeps a constant-size trail.
+ */
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY,
+        getterVisibility = JsonAutoDetect.Visibility.NONE,
+        isGetterVisibility = JsonAutoDetect.Visibility.NONE,
+        setterVisibility = JsonAutoDetect.Visibility.NONE)
+public class AuditLog {
+
+    private static final AuditEventType[] TYPES = AuditEventType.values();
+    private static final int NO_HOP = -1;
+    private static final int NO_REASON = -1;
+    private static final int MIN_MAX_EVENTS = 4;
+    private static final int INITIAL_CAPACITY = 8;
+
+    private String shipmentHandle;
+    private int maxEvents;
+
+    private int size;
+    private long appended;
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private short[] fromHops = new short[INITIAL_CAPACITY];
+    private short[] toHops = new short[INITIAL_CAPACITY];
+    private int[] reasonIds = new int[INITIAL_CAPACITY];
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private List<String> reasons = new ArrayList<>();
+
+    private int rolledUpMoves;
+    private int rolledUpFailures;
+    private int rolledUpCompensations;
+    private long rolledUpUntil;
+
+    private transient Map<String, Integer> reasonIndex;
+
+    public AuditLog() {
+    }
+
+    /**
+     * @param maxEvents events retained before older ones are rolled up; zero or less keeps all
+     */
+    public AuditLog(String shipmentHandle, int maxEvents) {
+        this.shipmentHandle = shipmentHandle;
+        this.maxEvents = maxEvents <= 0 ? 0 : Math.max(MIN_MAX_EVENTS, maxEvents);
+    }
+
+    public void created(long timestamp) {
+        append(AuditEventType.CREATED, NO_HOP, NO_HOP, null, timestamp);
+    }
+
+    public void moved(int fromHop, int toHop, long timestamp) {
+        append(AuditEventType.MOVED, fromHop, toHop, null, timestamp);
+    }
+
+    public void failed(int fromHop, int toHop, String reason, long timestamp) {
+        append(AuditEventType.FAILED, fromHop, toHop, reason, timestamp);
+    }
+
+    public void compensated(int fromHop, int toHop, String reason, long timestamp) {
+        append(AuditEventType.COMPENSATED, fromHop, toHop, reason, timestamp);
+    }
+
+    public void completed(int fromHop, int toHop, long timestamp) {
+        append(AuditEventType.COMPLETED, fromHop, toHop, null, timestamp);
+    }
+
+    /**
+     * Number of events currently held, not counting rolled-up ones.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int rolledUpCount() {
+        return rolledUpMoves + rolledUpFailures + rolledUpCompensations;
+    }
+
+    /**
+     * Number of events ever appended, including rolled-up ones; the sequence number the
+     * next event will get.
+     */
+    public long appendedCount() {
+        return appended;
+    }
+
+    /**
+     * Renders the last {@code count} events held, fewer if some of them were rolled up. The
+     * CREATED event is only included while nothing has been rolled up, as it is otherwise not
+     * contiguous with the rest.
+     */
+    public List<AuditEvent> latest(int count, List<String> route) {
+        int first = Math.max(rolledUpCount() > 0 ? 1 : 0, size - count);
+        List<AuditEvent> events = new ArrayList<>(size - first);
+        for (int i = first; i < size; i++) {
+            events.add(render(i, route));
+        }
+        return events;
+    }
+
+    /**
+     * Renders the trail against the route the hop indices refer to.
+     */
+    public List<AuditEvent> toEvents(List<String> route) {
+        List<AuditEvent> events = new ArrayList<>(size + 1);
+        for (int i = 0; i < size; i++) {
+            if (i == 1 && rolledUpCount() > 0) {
+                events.add(AuditEvent.rolledUp(rolledUpMoves, rolledUpFailures, rolledUpCompensations,
+                        Instant.ofEpochMilli(rolledUpUntil)));
+            }
+            events.add(render(i, route));
+        }
+        return events;
+    }
+
+    private AuditEvent render(int i, List<String> route) {
+        Instant timestamp = Instant.ofEpochMilli(timestamps[i]);
+        String from = fromHops[i] == NO_HOP ? null : route.get(fromHops[i]);
+        String to = toHops[i] == NO_HOP ? null : route.get(toHops[i]);
+        String reason = reasonIds[i] == NO_REASON ? null : reasons.get(reasonIds[i]);
+        return switch (TYPES[types[i]]) {
+            case CREATED -> AuditEvent.created(shipmentHandle, timestamp);
+            case MOVED -> AuditEvent.moved(from, to, timestamp);
+            case FAILED -> AuditEvent.failed(from, to, reason, timestamp);
+            case COMPENSATED -> AuditEvent.compensated(from, to, reason, timestamp);
+            case COMPLETED -> AuditEvent.completed(from, to, timestamp);
+            case ROLLED_UP -> throw new IllegalStateException("ROLLED_UP is never stored");
+        };
+    }
+
+    private void append(AuditEventType type, int fromHop, int toHop, String reason, long timestamp) {
+        if (size == types.length) {
+            grow();
+        }
+        types[size] = (byte) type.ordinal();
+        fromHops[size] = (short) fromHop;
+        toHops[size] = (short) toHop;
+        reasonIds[size] = internReason(reason);
+        timestamps[size] = timestamp;
+        size++;
+        appended++;
+
+        if (maxEvents > 0 && size > maxEvents) {
+            rollUp();
+        }
+    }
+
+    /**
+     * Folds the oldest events after the first one into the rolled-up counters. Compacts down
+     * to three quarters of the limit so the array shift is paid once per several appends.
+     */
+    private void rollUp() {
+        int retain = Math.max(2, maxEvents * 3 / 4);
+        int drop = size - retain;
+        for (int i = 1; i <= drop; i++) {
+            switch (TYPES[types[i]]) {
+                case MOVED -> rolledUpMoves++;
+                case FAILED -> rolledUpFailures++;
+                case COMPENSATED -> rolledUpCompensations++;
+                default -> {
+                }
+            }
+            rolledUpUntil = timestamps[i];
+        }
+        int tail = size - 1 - drop;
+        System.arraycopy(types, 1 + drop, types, 1, tail);
+        System.arraycopy(fromHops, 1 + drop, fromHops, 1, tail);
+        System.arraycopy(toHops, 1 + drop, toHops, 1, tail);
+        System.arraycopy(reasonIds, 1 + drop, reasonIds, 1, tail);
+        System.arraycopy(timestamps, 1 + drop, timestamps, 1, tail);
+        size = retain;
+    }
+
+    private void grow() {
+        int capacity = types.length * 2;
+        if (maxEvents > 0) {
+            capacity = Math.min(capacity, maxEvents + 1);
+        }
+        types = Arrays.copyOf(types, capacity);
+        fromHops = Arrays.copyOf(fromHops, capacity);
+        toHops = Arrays.copyOf(toHops, capacity);
+        reasonIds = Arrays.copyOf(reasonIds, capacity);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+    }
+
+    private int internReason(String reason) {
+        if (reason == null) {
+            return NO_REASON;
+        }
+        if (reasonIndex == null) {
+            reasonIndex = new HashMap<>();
+            for (int i = 0; i < reasons.size(); i++) {
+                reasonIndex.put(reasons.get(i), i);
+            }
+        }
+        return reasonIndex.computeIfAbsent(reason, r -> {
+            reasons.add(r);
+            return reasons.size() - 1;
+        });
+    }
+}
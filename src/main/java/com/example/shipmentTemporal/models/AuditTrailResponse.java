@@ -16,4 +16,12 @@ public class AuditTrailResponse {
     private String message;
     private String workflowId;
     private List<AuditEvent> auditTrail;
-}
\ No newline at end of file
+    private int offset;
+    private int limit;
+    private long total;
+    /**
+     * {@code projection} when served from the audit projection store, {@code workflow} when
+     * the workflow had to be queried.
+     */
+    private String source;
+}
@@ -0,0 +1,14 @@
+package com.example.shipmentTemporal.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchShipmentRequest {
+    private List<String> shipmentHandles;
+}
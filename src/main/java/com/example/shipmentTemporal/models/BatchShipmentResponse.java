@@ -0,0 +1,21 @@
+package com.example.shipmentTemporal.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchShipmentResponse {
+    private boolean success;
+    private String message;
+    private int started;
+    private int alreadyRunning;
+    private int failed;
+    private List<BatchShipmentResult> results;
+}
@@ -0,0 +1,17 @@
+package com.example.shipmentTemporal.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchShipmentResult {
+    private String shipmentHandle;
+    private String workflowId;
+    private BatchStartStatus status;
+    private String message;
+}
@@ -0,0 +1,7 @@
+package com.example.shipmentTemporal.models;
+
+public enum BatchStartStatus {
+    STARTED,
+    ALREADY_RUNNING,
+    FAILED;
+}
@@ -0,0 +1,129 @@
+package com.example.shipmentTemporal.models;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable route as held by cached shipment workflows: an int array of ids into a
+ * process-wide, append-only city table instead of a list of strings per workflow. Routes are
+ * canonicalized by version, so every workflow on the same route shares one instance and only
+ * pays for a reference to it.
+ * <p>
+ * It is a read-only {@code List<String>}, so code indexing the route or passing it to
+ * activities does not change.
+ */
+public final class CompactRoute extends AbstractList<String> implements RandomAccess {
+
+    public static final CompactRoute EMPTY = new CompactRoute(new int[0], null);
+
+    /**
+     * Distinct routes kept canonical; the roulette service serves one route at a time, so this
+     * only guards against an unbounded number of versions.
+     */
+    private static final int MAX_CANONICAL_ROUTES = 1024;
+    private static final Map<String, CompactRoute> CANONICAL = new ConcurrentHashMap<>();
+
+    private final int[] cityIds;
+    private final String version;
+
+    private CompactRoute(int[] cityIds, String version) {
+        this.cityIds = cityIds;
+        this.version = version;
+    }
+
+    /**
+     * The shared instance for the snapshot's route, created on first use.
+     */
+    public static CompactRoute of(RouteSnapshot snapshot) {
+        String version = snapshot.getVersion();
+        CompactRoute canonical = version == null ? null : CANONICAL.get(version);
+        if (canonical != null && canonical.equals(snapshot.getCities())) {
+            return canonical;
+        }
+        CompactRoute route = new CompactRoute(CityTable.ids(snapshot.getCities()), version);
+        if (version != null) {
+            if (CANONICAL.size() >= MAX_CANONICAL_ROUTES) {
+                CANONICAL.clear();
+            }
+            CANONICAL.putIfAbsent(version, route);
+        }
+        return route;
+    }
+
+    public String version() {
+        return version;
+    }
+
+    /**
+     * A snapshot with a fresh copy of the cities, e.g. for a continue-as-new checkpoint.
+     */
+    public RouteSnapshot toSnapshot() {
+        return RouteSnapshot.builder()
+                .cities(List.copyOf(this))
+                .version(version)
+                .build();
+    }
+
+    @Override
+    public String get(int index) {
+        Objects.checkIndex(index, cityIds.length);
+        return CityTable.name(cityIds[index]);
+    }
+
+    @Override
+    public int size() {
+        return cityIds.length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof CompactRoute other) {
+            return Arrays.equals(cityIds, other.cityIds);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    /**
+     * Interned city names, one entry per distinct city seen by this process.
+     */
+    private static final class CityTable {
+
+        private static final Map<String, Integer> IDS = new HashMap<>();
+        private static volatile String[] names = new String[64];
+        private static int size;
+
+        static synchronized int[] ids(List<String> cities) {
+            int[] ids = new int[cities.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = IDS.computeIfAbsent(cities.get(i), CityTable::add);
+            }
+            return ids;
+        }
+
+        static String name(int id) {
+            return names[id];
+        }
+
+        private static int add(String city) {
+            String[] current = names;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+            }
+            current[size] = city;
+            // Published through the volatile write before the id is handed out
+            names = current;
+            return size++;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.shipmentTemporal.models;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteSnapshot {
+    private List<String> cities;
+    private String version;
+
+    /**
+     * Builds a snapshot whose version is a fingerprint of the ordered city list, so two
+     * fetches of an unchanged route always carry the same version.
+     */
+    public static RouteSnapshot of(List<String> cities) {
+        return RouteSnapshot.builder()
+                .cities(List.copyOf(cities))
+                .version(fingerprint(cities))
+                .build();
+    }
+
+    /**
+     * Reads the bare city list that getRoute returned before it returned a snapshot, which is
+     * what executions started on that version hold in their history.
+     */
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static RouteSnapshot fromCities(List<String> cities) {
+        return of(cities);
+    }
+
+        private static String fingerprint(List<String> cities) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String city : cities) {
+                digest.update(city.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.shipmentTemporal.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * State a shipment workflow hands to its next run when it continues as new.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShipmentCheckpoint {
+    private RouteSnapshot route;
+    private Integer shipmentId;
+    private int currentIndex;
+    private int retryCycle;
+    private AuditLog auditLog;
+    private int run;
+    private long startedAt;
+    private List<String> reservedWaypoints;
+    private long auditPublished;
+    private int compensations;
+}
@@ -0,0 +1,23 @@
+package com.example.shipmentTemporal.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShipmentListResponse {
+    private boolean success;
+    private String message;
+    private String query;
+    private List<ShipmentSummary> shipments;
+    /**
+     * Pass back as {@code pageToken} for the next page; null on the last page.
+     */
+    private String nextPageToken;
+}
@@ -0,0 +1,20 @@
+package com.example.shipmentTemporal.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShipmentProgress {
+    private ShipmentStatus status;
+    private Integer shipmentId;
+    private int currentIndex;
+    private String currentCity;
+    private int retryCycle;
+    private int compensations;
+    private String routeVersion;
+}
@@ -6,6 +6,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -15,4 +17,10 @@ public class ShipmentResponse {
     private String message;
     private String workflowId;
     private String runId;
+    private ShipmentStatus status;
+    private Integer currentIndex;
+    private String currentCity;
+    private Integer shipmentId;
+    private List<String> route;
+    private String routeVersion;
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.example.shipmentTemporal.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Filters for listing shipments through the visibility API; unset fields do not filter.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShipmentSearchFilter {
+    private ShipmentStatus status;
+    private String city;
+    private Integer minRetryCycle;
+    private Integer minCompensations;
+    private Boolean running;
+}
@@ -0,0 +1,29 @@
+package com.example.shipmentTemporal.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * What a shipment workflow reports once a {@link StartMilestone} is reached.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShipmentStarted {
+    private Integer shipmentId;
+    private List<String> route;
+    private String routeVersion;
+    private ShipmentStatus status;
+    private int currentIndex;
+    private String currentCity;
+    /**
+     * The workflow continued as new before the milestone was reached; the other fields are the
+     * progress so far and the result should be polled instead.
+     */
+    private boolean milestonePending;
+}
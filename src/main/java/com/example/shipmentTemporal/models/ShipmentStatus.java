@@ -0,0 +1,11 @@
+package com.example.shipmentTemporal.models;
+
+public enum ShipmentStatus {
+    CREATING,
+    IN_TRANSIT,
+    WAITING_FOR_SLOT,
+    COMPENSATING,
+    BACKING_OFF,
+    DELIVERED,
+    FAILED;
+}
@@ -0,0 +1,29 @@
+package com.example.shipmentTemporal.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One shipment as the visibility store sees it, built from its search attributes without
+ * querying the workflow.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShipmentSummary {
+    private String workflowId;
+    private String runId;
+    private String executionStatus;
+    private Instant startTime;
+    private Instant closeTime;
+    private ShipmentStatus status;
+    private Integer currentIndex;
+    private String currentCity;
+    private Integer retryCycle;
+    private Integer compensations;
+}
@@ -0,0 +1,127 @@
+package com.example.shipmentTemporal.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+
+/**
+ * Tunables for ShipmentWorkflowImpl. They are bound from {@code shipment.workflow.*} and
+ * handed to each execution through its memo, so a run keeps the settings it started with
+ * across replays. Executions started without a memo use the defaults below.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShipmentWorkflowSettings {
+    /**
+     * Events kept in the audit trail before the oldest ones (after CREATED) are folded into
+     * a single ROLLED_UP summary. Zero or less keeps everything.
+     */
+    private int auditMaxEvents = 200;
+
+    /**
+     * History length after which the workflow continues as new, carrying its position and
+     * audit trail over. Temporal's own continue-as-new suggestion is honoured as well.
+     */
+    private int continueAsNewAfterEvents = 2000;
+
+    /**
+     * Runs getRoute/createShipment/moveShipment as local activities on the workflow worker,
+     * falling back to a regular activity when the local attempts time out or fail.
+     */
+    private boolean localActivities = false;
+
+    /**
+     * Time a local activity attempt may take before the call is handed to the activity queue.
+     * It must outlast the roulette HTTP client's timeouts, otherwise a move still in flight is
+     * sent again from the activity queue; this is checked at startup.
+     */
+    private Duration localActivityTimeout = Duration.ofSeconds(15);
+
+    /**
+     * Task queue the workflow schedules its activities on; set from
+     * {@code shipment.task-queues.activity}.
+     */
+    private String activityTaskQueue = "shipment-activity-queue";
+
+    /**
+     * Task queue compensateMove is scheduled on; set from {@code shipment.task-queues.compensation}.
+     * Executions started without it keep compensating on the activity queue.
+     */
+    private String compensationTaskQueue;
+
+    /**
+     * Books the next waypoint through its WaypointWorkflow before each move, so shipments
+     * queue for an occupied waypoint instead of failing the move and compensating.
+     */
+    private boolean waypointReservations = false;
+
+    /**
+     * Shipments a waypoint admits at once; the roulette service allows one.
+     */
+    private int waypointCapacity = 1;
+
+    /**
+     * How long shipments wait behind a full waypoint before its workflow checks whether the
+     * holders are still running and frees the slots of those that are not, e.g. terminated or
+     * timed-out shipments. Zero never checks. Waypoint workflows already running get the default
+     * when they next continue as new.
+     */
+    private Duration waypointHolderCheckInterval = Duration.ofMinutes(1);
+
+    /**
+     * While a move is in flight, looks up the occupancy of the waypoint after the destination
+     * and waits for it to clear before moving on, instead of firing a move bound to fail.
+     * Redundant with waypoint reservations, which take precedence.
+     */
+    private boolean nextHopLookahead = false;
+
+    /**
+     * How often an occupied next waypoint is polled while waiting for it.
+     */
+    private Duration lookaheadPollInterval = Duration.ofSeconds(2);
+
+    /**
+     * Longest wait for an occupied next waypoint before the move is attempted regardless.
+     */
+    private Duration lookaheadMaxWait = Duration.ofSeconds(60);
+
+    /**
+     * Publishes audit events to the read-side projection store through a local activity, so
+     * the audit-trail endpoint does not have to query the workflow.
+     */
+    private boolean auditProjection = false;
+
+    /**
+     * Upserts the shipment search attributes (status, hop, city, retry cycle, compensations) as
+     * the shipment progresses, for listing through the visibility API. The attributes must be
+     * registered on the namespace.
+     */
+    private boolean searchAttributes = false;
+
+    /**
+     * Hops a single moveAlong activity may cover, heartbeating its progress, instead of one
+     * moveShipment activity per hop. One or less moves hop by hop. Only applies without
+     * waypoint reservations, lookahead and local activities, which all work per hop.
+     */
+    private int maxHopsPerActivity = 1;
+
+    /**
+     * Longest a single hop inside a moveAlong activity may go without a heartbeat.
+     */
+    private Duration hopHeartbeatTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Longest a single compensateMove attempt may take. Compensations retry without limit, so
+     * this only bounds how long a hung call holds a worker slot before it is retried.
+     */
+    private Duration compensationAttemptTimeout = Duration.ofSeconds(30);
+
+    /**
+     * compensateMove heartbeats while its call is in flight; an attempt that misses heartbeats
+     * for this long, e.g. because its worker died, is retried elsewhere.
+     */
+    private Duration compensationHeartbeatTimeout = Duration.ofSeconds(10);
+}
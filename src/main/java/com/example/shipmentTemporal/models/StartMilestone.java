@@ -0,0 +1,15 @@
+package com.example.shipmentTemporal.models;
+
+/**
+ * How far a synchronous start waits before answering.
+ */
+public enum StartMilestone {
+    /**
+     * The downstream shipment was created and the route is known.
+     */
+    CREATED,
+    /**
+     * The shipment completed its first hop.
+     */
+    FIRST_HOP;
+}
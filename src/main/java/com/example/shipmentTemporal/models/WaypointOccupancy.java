@@ -0,0 +1,22 @@
+package com.example.shipmentTemporal.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Who currently occupies a waypoint, as last reported by the roulette service.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaypointOccupancy {
+    private String city;
+    private Integer occupiedByShipmentId;
+
+    public boolean isAvailableFor(Integer shipmentId) {
+        return occupiedByShipmentId == null || occupiedByShipmentId.equals(shipmentId);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.shipmentTemporal.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaypointResponse {
+    private boolean success;
+    private String error;
+    private WaypointData waypoint;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class WaypointData {
+        private int id;
+        private int idx;
+        private String city;
+        private String handle;
+        private int capacity;
+
+        @JsonProperty("occupied_by_shipment_id")
+        private Integer occupiedByShipmentId;
+    }
+}
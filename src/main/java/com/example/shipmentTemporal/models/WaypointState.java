@@ -0,0 +1,34 @@
+package com.example.shipmentTemporal.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Slot bookkeeping of one waypoint workflow: the shipment workflows holding a slot and the
+ * ones queued for it, in arrival order. Also the argument a waypoint workflow continues as
+ * new with.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaypointState {
+    private String waypoint;
+    private int capacity;
+    private int continueAsNewAfterEvents;
+    /**
+     * How long shipments may queue behind full slots before the holders are checked for ones
+     * that ended without releasing. Null or zero never checks.
+     */
+    private Duration holderCheckInterval;
+    @Builder.Default
+    private List<String> holders = new ArrayList<>();
+    @Builder.Default
+    private List<String> queue = new ArrayList<>();
+}
@@ -1,22 +1,60 @@
 package com.example.shipmentTemporal.service;
 
 
+import com.example.shipmentTemporal.configs.TaskQueueProperties;
 import com.example.shipmentTemporal.models.AuditEvent;
 import com.example.shipmentTemporal.models.AuditTrailResponse;
+import com.example.shipmentTemporal.models.BatchShipmentRequest;
+import com.example.shipmentTemporal.models.BatchShipmentResponse;
+import com.example.shipmentTemporal.models.BatchShipmentResult;
+import com.example.shipmentTemporal.models.BatchStartStatus;
+import com.example.shipmentTemporal.models.ShipmentProgress;
 import com.example.shipmentTemporal.models.ShipmentRequest;
+import com.example.shipmentTemporal.models.ShipmentCheckpoint;
+import com.example.shipmentTemporal.models.ShipmentListResponse;
 import com.example.shipmentTemporal.models.ShipmentResponse;
+import com.example.shipmentTemporal.models.ShipmentSearchFilter;
+import com.example.shipmentTemporal.models.ShipmentStarted;
+import com.example.shipmentTemporal.models.ShipmentStatus;
+import com.example.shipmentTemporal.models.ShipmentSummary;
+import com.example.shipmentTemporal.models.ShipmentWorkflowSettings;
+import com.example.shipmentTemporal.models.StartMilestone;
+import com.example.shipmentTemporal.service.audit.AuditProjectionStore;
+import com.example.shipmentTemporal.service.temporal.workflows.ShipmentSearchAttributes;
 import com.example.shipmentTemporal.service.temporal.workflows.ShipmentWorkflow;
+import com.google.protobuf.ByteString;
+import io.micrometer.common.util.StringUtils;
+import io.temporal.api.enums.v1.WorkflowIdConflictPolicy;
 import io.temporal.api.enums.v1.WorkflowIdReusePolicy;
+import io.temporal.api.workflowservice.v1.ListWorkflowExecutionsRequest;
+import io.temporal.api.workflowservice.v1.ListWorkflowExecutionsResponse;
+import io.temporal.client.UpdateOptions;
+import io.temporal.client.WithStartWorkflowOperation;
 import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowExecutionAlreadyStarted;
+import io.temporal.client.WorkflowExecutionMetadata;
 import io.temporal.client.WorkflowOptions;
 import io.temporal.client.WorkflowStub;
+import io.temporal.client.WorkflowUpdateStage;
+import io.temporal.client.WorkflowUpdateTimeoutOrCancelledException;
 import io.temporal.common.RetryOptions;
+import io.temporal.common.SearchAttributes;
+import io.temporal.common.converter.DataConverter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Slf4j
 @Service
@@ -24,28 +62,17 @@ import java.util.UUID;
 public class ShipmentService {
     
     private final WorkflowClient workflowClient;
+    private final ShipmentWorkflowSettings workflowSettings;
+    private final TaskQueueProperties taskQueues;
+    private final AuditProjectionStore auditProjectionStore;
+    @Qualifier("workflowClientExecutor")
+    private final Executor workflowClientExecutor;
 
     public ShipmentResponse startShipment(ShipmentRequest request) {
         log.info("Starting shipment workflow for request: {}", request);
         
         try {
-            String workflowId = "shipment-" + request.getShipmentHandle();
-
-            WorkflowOptions options = WorkflowOptions.newBuilder()
-                .setRetryOptions(RetryOptions.newBuilder().setMaximumAttempts(1).build())
-                .setWorkflowId(workflowId)
-                .setWorkflowIdReusePolicy(WorkflowIdReusePolicy.WORKFLOW_ID_REUSE_POLICY_ALLOW_DUPLICATE_FAILED_ONLY)
-                .setTaskQueue("shipment-workflow-queue")
-                .build();
-            
-            ShipmentWorkflow workflow = workflowClient.newWorkflowStub(
-                ShipmentWorkflow.class,
-                options
-            );
-            
-            WorkflowClient.start(
-                () -> workflow.executeShipment(request.getShipmentHandle())
-            );
+            String workflowId = startWorkflow(request.getShipmentHandle());
             
             log.info("Workflow started successfully with ID: {}", workflowId);
             
@@ -63,47 +90,166 @@ public class ShipmentService {
         }
     }
 
-    public ShipmentResponse getWorkflowResult(String workflowId) {
-        log.info("Fetching workflow result for ID: {}", workflowId);
+    /**
+     * Starts the workflow and waits, for at most {@code waitSeconds}, until it reached the
+     * milestone, in one update-with-start call. The answer carries the downstream shipment ID
+     * and route, so the caller does not have to poll for them. A shipment that is already
+     * running is attached to rather than rejected, which makes retried starts safe. If the
+     * window closes first, or the workflow continues as new before the milestone, the response
+     * carries the current status and hop instead.
+     */
+    public CompletableFuture<ShipmentResponse> startShipmentAndWait(ShipmentRequest request, StartMilestone milestone,
+                                                                    long waitSeconds) {
+        String shipmentHandle = request.getShipmentHandle();
+        String workflowId = workflowIdFor(shipmentHandle);
+        log.info("Starting shipment workflow {} and waiting for {} (up to {}s)", workflowId, milestone, waitSeconds);
 
-        try {
-            ShipmentWorkflow workflow = workflowClient.newWorkflowStub(
-                    ShipmentWorkflow.class,
-                    workflowId
-            );
-            String result = WorkflowStub.fromTyped(workflow).getResult(String.class);
+        ShipmentWorkflow workflow = workflowClient.newWorkflowStub(
+            ShipmentWorkflow.class,
+            workflowOptions(workflowId)
+                .setWorkflowIdConflictPolicy(WorkflowIdConflictPolicy.WORKFLOW_ID_CONFLICT_POLICY_USE_EXISTING)
+                .build()
+        );
+        WithStartWorkflowOperation<String> start =
+            new WithStartWorkflowOperation<>(workflow::executeShipment, shipmentHandle, (ShipmentCheckpoint) null);
+        UpdateOptions<ShipmentStarted> updateOptions = UpdateOptions.<ShipmentStarted>newBuilder()
+            .setWaitForStage(WorkflowUpdateStage.ACCEPTED)
+            .build();
 
-            return ShipmentResponse.builder()
-                    .success(true).message(result)
-                    .workflowId(workflowId)
-                    .build();
+        return CompletableFuture
+            .supplyAsync(() -> WorkflowClient.startUpdateWithStart(workflow::awaitStart, milestone, updateOptions, start),
+                workflowClientExecutor)
+            .thenCompose(update -> update.getResultAsync(waitSeconds, TimeUnit.SECONDS))
+            .handleAsync((started, error) -> {
+                if (error == null && started.isMilestonePending()) {
+                    return ShipmentResponse.builder()
+                        .success(true).message("Shipment is still running")
+                        .workflowId(workflowId)
+                        .status(started.getStatus())
+                        .currentIndex(started.getCurrentIndex())
+                        .currentCity(started.getCurrentCity())
+                        .build();
+                }
+                if (error == null) {
+                    return ShipmentResponse.builder()
+                        .success(true).message("Shipment workflow started, " + milestone + " reached")
+                        .workflowId(workflowId)
+                        .status(started.getStatus())
+                        .currentIndex(started.getCurrentIndex())
+                        .currentCity(started.getCurrentCity())
+                        .shipmentId(started.getShipmentId())
+                        .route(started.getRoute())
+                        .routeVersion(started.getRouteVersion())
+                        .build();
+                }
 
-        } catch (Exception e) {
-            log.error("Failed to get workflow result for workflow: {}", workflowId, e);
-            return ShipmentResponse.builder()
-                    .success(false).message("Failed to get workflow result: " + e.getMessage())
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+                if (cause instanceof TimeoutException || cause instanceof WorkflowUpdateTimeoutOrCancelledException) {
+                    return stillRunning(workflow, workflowId);
+                }
+
+                log.error("Failed to start shipment workflow {} and wait for {}", workflowId, milestone, cause);
+                return ShipmentResponse.builder()
+                    .success(false).message("Failed to start workflow: " + cause.getMessage())
                     .workflowId(workflowId)
+                    .status(ShipmentStatus.FAILED)
                     .build();
-        }
+            }, workflowClientExecutor);
+    }
+
+    /**
+     * Starts one workflow per handle, fanning the start calls out over the bounded
+     * workflow client executor. A failure for one handle never fails the batch.
+     */
+    public BatchShipmentResponse startShipments(BatchShipmentRequest request) {
+        List<String> handles = request.getShipmentHandles();
+        log.info("Starting batch of {} shipment workflows", handles.size());
+
+        List<CompletableFuture<BatchShipmentResult>> starts = handles.stream()
+            .map(handle -> CompletableFuture.supplyAsync(() -> startBatchEntry(handle), workflowClientExecutor))
+            .toList();
+        List<BatchShipmentResult> results = starts.stream()
+            .map(CompletableFuture::join)
+            .toList();
+
+        int started = countByStatus(results, BatchStartStatus.STARTED);
+        int alreadyRunning = countByStatus(results, BatchStartStatus.ALREADY_RUNNING);
+        int failed = countByStatus(results, BatchStartStatus.FAILED);
+        log.info("Batch start finished: {} started, {} already running, {} failed", started, alreadyRunning, failed);
+
+        return BatchShipmentResponse.builder()
+            .success(failed == 0)
+            .message(String.format("Started %d of %d shipment workflows", started, results.size()))
+            .started(started)
+            .alreadyRunning(alreadyRunning)
+            .failed(failed)
+            .results(results)
+            .build();
     }
 
-    public AuditTrailResponse getAuditTrail(String workflowId) {
-        log.info("Fetching audit trail for workflow ID: {}", workflowId);
+    /**
+     * Long-polls for the workflow result for at most {@code waitSeconds} without holding the
+     * calling thread. If the shipment is still moving when the window closes, the response
+     * carries its current status and hop instead of a result.
+     */
+    public CompletableFuture<ShipmentResponse> getWorkflowResult(String workflowId, long waitSeconds) {
+        log.info("Fetching workflow result for ID: {} (waiting up to {}s)", workflowId, waitSeconds);
+
+        ShipmentWorkflow workflow = workflowClient.newWorkflowStub(
+                ShipmentWorkflow.class,
+                workflowId
+        );
+        return WorkflowStub.fromTyped(workflow)
+                .getResultAsync(waitSeconds, TimeUnit.SECONDS, String.class)
+                .handleAsync((result, error) -> {
+                    if (error == null) {
+                        return ShipmentResponse.builder()
+                                .success(true).message(result)
+                                .workflowId(workflowId)
+                                .status(ShipmentStatus.DELIVERED)
+                                .build();
+                    }
+
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    if (cause instanceof TimeoutException) {
+                        return stillRunning(workflow, workflowId);
+                    }
+
+                    log.error("Failed to get workflow result for workflow: {}", workflowId, cause);
+                    return ShipmentResponse.builder()
+                            .success(false).message("Failed to get workflow result: " + cause.getMessage())
+                            .workflowId(workflowId)
+                            .status(ShipmentStatus.FAILED)
+                            .build();
+                }, workflowClientExecutor);
+    }
+
+    /**
+     * Serves a page of the audit trail from the projection store, querying the workflow only
+     * when the shipment has no projection there.
+     */
+    public AuditTrailResponse getAuditTrail(String workflowId, int offset, int limit) {
+        log.info("Fetching audit trail for workflow ID: {} (offset={}, limit={})", workflowId, offset, limit);
         
         try {
+            Optional<AuditProjectionStore.AuditPage> projected = auditProjectionStore.page(workflowId, offset, limit);
+            if (projected.isPresent()) {
+                return auditTrailPage(workflowId, offset, limit, projected.get(), "projection");
+            }
+
             ShipmentWorkflow workflow = workflowClient.newWorkflowStub(
                 ShipmentWorkflow.class,
                 workflowId
             );
             
             List<AuditEvent> auditTrail = workflow.getAuditTrail();
+            int from = Math.min(offset, auditTrail.size());
+            int to = Math.min(auditTrail.size(), from + limit);
             
-            return AuditTrailResponse.builder()
-                .success(true)
-                .message("Audit trail fetched successfully")
-                .workflowId(workflowId)
-                .auditTrail(auditTrail)
-                .build();
+            return auditTrailPage(workflowId, offset, limit,
+                new AuditProjectionStore.AuditPage(auditTrail.subList(from, to), auditTrail.size()), "workflow");
             
         } catch (Exception e) {
             log.error("Failed to get audit trail for workflow: {}", workflowId, e);
@@ -114,4 +260,194 @@ public class ShipmentService {
                 .build();
         }
     }
+
+    /**
+     * Lists shipments with a single visibility query over the search attributes the workflow
+     * keeps up to date, instead of querying each workflow. Pages are chained through the
+     * opaque {@code pageToken}.
+     */
+    public ShipmentListResponse listShipments(ShipmentSearchFilter filter, int pageSize, String pageToken) {
+        String query = visibilityQuery(filter);
+        log.info("Listing shipments: {} (pageSize={})", query, pageSize);
+
+        try {
+            ListWorkflowExecutionsRequest.Builder request = ListWorkflowExecutionsRequest.newBuilder()
+                .setNamespace(workflowClient.getOptions().getNamespace())
+                .setQuery(query)
+                .setPageSize(pageSize);
+            if (StringUtils.isNotBlank(pageToken)) {
+                request.setNextPageToken(ByteString.copyFrom(Base64.getUrlDecoder().decode(pageToken)));
+            }
+            ListWorkflowExecutionsResponse page = workflowClient.getWorkflowServiceStubs().blockingStub()
+                .listWorkflowExecutions(request.build());
+
+            DataConverter dataConverter = workflowClient.getOptions().getDataConverter();
+            List<ShipmentSummary> shipments = page.getExecutionsList().stream()
+                .map(info -> shipmentSummary(new WorkflowExecutionMetadata(info, dataConverter)))
+                .toList();
+            return ShipmentListResponse.builder()
+                .success(true)
+                .message("Found " + shipments.size() + " shipments")
+                .query(query)
+                .shipments(shipments)
+                .nextPageToken(page.getNextPageToken().isEmpty() ? null
+                    : Base64.getUrlEncoder().withoutPadding().encodeToString(page.getNextPageToken().toByteArray()))
+                .build();
+
+        } catch (Exception e) {
+            log.error("Failed to list shipments with query: {}", query, e);
+            return ShipmentListResponse.builder()
+                .success(false)
+                .message("Failed to list shipments: " + e.getMessage())
+                .query(query)
+                .build();
+        }
+    }
+
+    /**
+     * Visibility query for the filter. The city is validated by the controller, as the query
+     * language has no bind parameters.
+     */
+    static String visibilityQuery(ShipmentSearchFilter filter) {
+        List<String> clauses = new ArrayList<>();
+        clauses.add("WorkflowType = 'ShipmentWorkflow'");
+        if (filter.getRunning() != null) {
+            clauses.add("ExecutionStatus " + (filter.getRunning() ? "=" : "!=") + " 'Running'");
+        }
+        if (filter.getStatus() != null) {
+            clauses.add(ShipmentSearchAttributes.STATUS.getName() + " = '" + filter.getStatus().name() + "'");
+        }
+        if (StringUtils.isNotBlank(filter.getCity())) {
+            clauses.add(ShipmentSearchAttributes.CITY.getName() + " = '" + filter.getCity() + "'");
+        }
+        if (filter.getMinRetryCycle() != null) {
+            clauses.add(ShipmentSearchAttributes.RETRY_CYCLE.getName() + " >= " + filter.getMinRetryCycle());
+        }
+        if (filter.getMinCompensations() != null) {
+            clauses.add(ShipmentSearchAttributes.COMPENSATIONS.getName() + " >= " + filter.getMinCompensations());
+        }
+        return String.join(" AND ", clauses);
+    }
+
+    private static ShipmentSummary shipmentSummary(WorkflowExecutionMetadata execution) {
+        SearchAttributes attributes = execution.getTypedSearchAttributes();
+        String status = attributes.get(ShipmentSearchAttributes.STATUS);
+        return ShipmentSummary.builder()
+            .workflowId(execution.getExecution().getWorkflowId())
+            .runId(execution.getExecution().getRunId())
+            .executionStatus(execution.getStatus().name().replace("WORKFLOW_EXECUTION_STATUS_", ""))
+            .startTime(execution.getStartTime())
+            .closeTime(execution.getCloseTime())
+            .status(status == null ? null : ShipmentStatus.valueOf(status))
+            .currentIndex(intOrNull(attributes.get(ShipmentSearchAttributes.HOP_INDEX)))
+            .currentCity(attributes.get(ShipmentSearchAttributes.CITY))
+            .retryCycle(intOrNull(attributes.get(ShipmentSearchAttributes.RETRY_CYCLE)))
+            .compensations(intOrNull(attributes.get(ShipmentSearchAttributes.COMPENSATIONS)))
+            .build();
+    }
+
+    private static Integer intOrNull(Long value) {
+        return value == null ? null : value.intValue();
+    }
+
+    private static AuditTrailResponse auditTrailPage(String workflowId, int offset, int limit,
+                                                     AuditProjectionStore.AuditPage page, String source) {
+        return AuditTrailResponse.builder()
+            .success(true)
+            .message("Audit trail fetched successfully")
+            .workflowId(workflowId)
+            .auditTrail(page.events())
+            .offset(offset)
+            .limit(limit)
+            .total(page.total())
+            .source(source)
+            .build();
+    }
+
+    private ShipmentResponse stillRunning(ShipmentWorkflow workflow, String workflowId) {
+        ShipmentResponse.ShipmentResponseBuilder response = ShipmentResponse.builder()
+                .success(true).message("Shipment is still running")
+                .workflowId(workflowId);
+        try {
+            ShipmentProgress progress = workflow.getProgress();
+            return response
+                    .status(progress.getStatus())
+                    .currentIndex(progress.getCurrentIndex())
+                    .currentCity(progress.getCurrentCity())
+                    .build();
+        } catch (Exception e) {
+            log.warn("Failed to query progress for running workflow: {}", workflowId, e);
+            return response.build();
+        }
+    }
+
+    private BatchShipmentResult startBatchEntry(String shipmentHandle) {
+        if (StringUtils.isBlank(shipmentHandle)) {
+            return BatchShipmentResult.builder()
+                .shipmentHandle(shipmentHandle)
+                .status(BatchStartStatus.FAILED)
+                .message("Shipment handle is required")
+                .build();
+        }
+
+        String workflowId = workflowIdFor(shipmentHandle);
+        try {
+            startWorkflow(shipmentHandle);
+            return BatchShipmentResult.builder()
+                .shipmentHandle(shipmentHandle)
+                .workflowId(workflowId)
+                .status(BatchStartStatus.STARTED)
+                .build();
+        } catch (WorkflowExecutionAlreadyStarted e) {
+            return BatchShipmentResult.builder()
+                .shipmentHandle(shipmentHandle)
+                .workflowId(workflowId)
+                .status(BatchStartStatus.ALREADY_RUNNING)
+                .message("Workflow already started")
+                .build();
+        } catch (Exception e) {
+            log.error("Failed to start shipment workflow for handle: {}", shipmentHandle, e);
+            return BatchShipmentResult.builder()
+                .shipmentHandle(shipmentHandle)
+                .workflowId(workflowId)
+                .status(BatchStartStatus.FAILED)
+                .message("Failed to start workflow: " + e.getMessage())
+                .build();
+        }
+    }
+
+    private String startWorkflow(String shipmentHandle) {
+        String workflowId = workflowIdFor(shipmentHandle);
+
+        ShipmentWorkflow workflow = workflowClient.newWorkflowStub(
+            ShipmentWorkflow.class,
+            workflowOptions(workflowId).build()
+        );
+
+        WorkflowClient.start(
+            () -> workflow.executeShipment(shipmentHandle, null)
+        );
+        return workflowId;
+    }
+
+    private WorkflowOptions.Builder workflowOptions(String workflowId) {
+        return WorkflowOptions.newBuilder()
+            .setRetryOptions(RetryOptions.newBuilder().setMaximumAttempts(1).build())
+            .setWorkflowId(workflowId)
+            .setWorkflowIdReusePolicy(WorkflowIdReusePolicy.WORKFLOW_ID_REUSE_POLICY_ALLOW_DUPLICATE_FAILED_ONLY)
+            .setTaskQueue(taskQueues.getWorkflow())
+            .setMemo(Map.of(ShipmentWorkflow.SETTINGS_MEMO_KEY, workflowSettings))
+            .setTypedSearchAttributes(workflowSettings.isSearchAttributes()
+                // Listed as CREATING from the start rather than only after the first upsert
+                ? SearchAttributes.newBuilder().set(ShipmentSearchAttributes.STATUS, ShipmentStatus.CREATING.name()).build()
+                : null);
+    }
+
+    private static String workflowIdFor(String shipmentHandle) {
+        return "shipment-" + shipmentHandle;
+    }
+
+    private static int countByStatus(List<BatchShipmentResult> results, BatchStartStatus status) {
+        return (int) results.stream().filter(result -> result.getStatus() == status).count();
+    }
 }
@@ -0,0 +1,118 @@
+package com.example.shipmentTemporal.service.audit;
+
+import com.example.shipmentTemporal.models.AuditEvent;
+import com.example.shipmentTemporal.models.AuditEventType;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes audit events to live subscribers as they reach the projection store. Each watched
+ * shipment has one channel that only carries "something was appended" signals; subscribers
+ * read the new events from the store themselves, so the cost of a publish does not depend
+ * on the number of subscribers and no subscriber ever queries the workflow.
+ */
+@Component
+public class AuditEventStream {
+
+    private static final int READ_BATCH = 500;
+
+    private final AuditProjectionStore store;
+    private final Map<String, Channel> channels = new HashMap<>();
+
+    public AuditEventStream(AuditProjectionStore store) {
+        this.store = store;
+    }
+
+    /**
+     * An audit event with its position in the shipment's trail, used to resume a stream.
+     */
+    public record SequencedAuditEvent(long sequence, AuditEvent event) {
+    }
+
+    /**
+     * Events of the shipment from position {@code offset} on, followed by new ones as they are
+     * published. Completes after the COMPLETED event.
+     */
+    public Flux<SequencedAuditEvent> stream(String workflowId, long offset) {
+        return Flux.defer(() -> {
+            Channel channel = join(workflowId);
+            AtomicLong next = new AtomicLong(Math.max(0, offset));
+            // The channel replays its latest signal, so an append made between the first read
+            // and the subscription still wakes this subscriber up.
+            return Flux.concat(Mono.just(0L), channel.signals.asFlux())
+                    .onBackpressureLatest()
+                    .concatMapIterable(ignored -> readFrom(workflowId, next), 1)
+                    .takeUntil(event -> event.event().getEventType() == AuditEventType.COMPLETED)
+                    .doFinally(signal -> leave(workflowId, channel));
+        });
+    }
+
+    /**
+     * Wakes up the subscribers of the shipment; called after events were appended to the store.
+     */
+    public void published(String workflowId) {
+        Channel channel;
+        synchronized (channels) {
+            channel = channels.get(workflowId);
+        }
+        if (channel != null) {
+            channel.signal();
+        }
+    }
+
+    int watchedShipments() {
+        synchronized (channels) {
+            return channels.size();
+        }
+    }
+
+    private List<SequencedAuditEvent> readFrom(String workflowId, AtomicLong next) {
+        List<SequencedAuditEvent> events = new ArrayList<>();
+        while (true) {
+            int offset = (int) Math.min(Integer.MAX_VALUE, next.get());
+            List<AuditEvent> page = store.page(workflowId, offset, READ_BATCH)
+                    .map(AuditProjectionStore.AuditPage::events)
+                    .orElse(List.of());
+            for (AuditEvent event : page) {
+                events.add(new SequencedAuditEvent(next.getAndIncrement(), event));
+            }
+            if (page.size() < READ_BATCH) {
+                return events;
+            }
+        }
+    }
+
+    private Channel join(String workflowId) {
+        synchronized (channels) {
+            Channel channel = channels.computeIfAbsent(workflowId, id -> new Channel());
+            channel.subscribers++;
+            return channel;
+        }
+    }
+
+    private void leave(String workflowId, Channel channel) {
+        synchronized (channels) {
+            if (--channel.subscribers == 0) {
+                channels.remove(workflowId, channel);
+            }
+        }
+    }
+
+    private static final class Channel {
+        private final Sinks.Many<Long> signals = Sinks.many().replay().latest();
+        private long version;
+        private int subscribers;
+
+        private synchronized void signal() {
+            signals.tryEmitNext(++version);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.shipmentTemporal.service.audit;
+
+import com.example.shipmentTemporal.models.AuditEvent;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read side of the shipment audit trail. Workflows publish their events here as they happen,
+ * so reads are served without querying (and possibly replaying) the workflow. Unlike the
+ * workflow's own trail, a projection is never rolled up.
+ * <p>
+ * The in-memory store is the default ({@code shipment.audit-projection.store=memory}); a
+ * persistent backend plugs in as another implementation selected by that property.
+ */
+public interface AuditProjectionStore {
+
+    /**
+     * Appends events starting at position {@code fromSequence} of the shipment's trail.
+     * Positions already held are skipped, so a retried publish is harmless. If the events
+     * would leave a gap, the projection is dropped and reads fall back to the workflow.
+     */
+    void append(String workflowId, long fromSequence, List<AuditEvent> events);
+
+    /**
+     * Up to {@code limit} events starting at {@code offset}, or empty when the shipment has
+     * no projection or the store cannot tell that its projection is current.
+     */
+    Optional<AuditPage> page(String workflowId, int offset, int limit);
+
+    record AuditPage(List<AuditEvent> events, long total) {
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.shipmentTemporal.service.audit;
+
+import com.example.shipmentTemporal.models.AuditEvent;
+import com.example.shipmentTemporal.models.AuditEventType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps the projections of the most recently written shipments, evicting the least recently
+ * used one beyond {@code shipment.audit-projection.max-shipments}. An evicted shipment is
+ * read through the workflow query again.
+ * <p>
+ * The store is per process and is fed by whichever worker runs the shipment's workflow tasks.
+ * When a shipment moves to another worker, e.g. after a sticky cache eviction or a restart,
+ * the new worker sees a gap and keeps no projection, while this one stops receiving events. A
+ * running shipment's projection that has not been written for
+ * {@code shipment.audit-projection.max-idle} is therefore not served, so reads go to the
+ * workflow query; it is served again once the shipment publishes here again. A delivered
+ * shipment's projection is complete and is always served. Zero turns the check off, which is
+ * only correct with a single worker.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shipment.audit-projection.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryAuditProjectionStore implements AuditProjectionStore {
+
+    private final Map<String, Projection> projections;
+    private final long maxIdleNanos;
+    private final LongSupplier nanoClock;
+
+    @Autowired
+    public InMemoryAuditProjectionStore(@Value("${shipment.audit-projection.max-shipments:10000}") int maxShipments,
+                                        @Value("${shipment.audit-projection.max-idle:2m}") Duration maxIdle) {
+        this(maxShipments, maxIdle, System::nanoTime);
+    }
+
+    InMemoryAuditProjectionStore(int maxShipments, Duration maxIdle, LongSupplier nanoClock) {
+        this.projections = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Projection> eldest) {
+                return size() > maxShipments;
+            }
+        };
+        this.maxIdleNanos = maxIdle.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public synchronized void append(String workflowId, long fromSequence, List<AuditEvent> events) {
+        Projection projection = projections.get(workflowId);
+        long held = projection == null ? 0 : projection.events.size();
+        if (fromSequence > held) {
+            log.warn("Audit projection of {} is missing events {}..{}, dropping it", workflowId, held, fromSequence - 1);
+            projections.remove(workflowId);
+            return;
+        }
+        if (projection == null) {
+            projection = new Projection();
+            projections.put(workflowId, projection);
+        }
+        // A retried publish still shows the shipment is published here
+        projection.writtenAt = nanoClock.getAsLong();
+        int skip = (int) (held - fromSequence);
+        if (skip < events.size()) {
+            projection.events.addAll(events.subList(skip, events.size()));
+        }
+    }
+
+    @Override
+    public synchronized Optional<AuditPage> page(String workflowId, int offset, int limit) {
+        Projection projection = projections.get(workflowId);
+        if (projection == null || projection.events.isEmpty()) {
+            return Optional.empty();
+        }
+        if (isIdle(projection)) {
+            log.debug("Audit projection of {} was last written {} ms ago, reading the workflow instead",
+                    workflowId, (nanoClock.getAsLong() - projection.writtenAt) / 1_000_000);
+            return Optional.empty();
+        }
+        List<AuditEvent> events = projection.events;
+        int from = Math.min(offset, events.size());
+        int to = Math.min(events.size(), from + limit);
+        return Optional.of(new AuditPage(List.copyOf(events.subList(from, to)), events.size()));
+    }
+
+    private boolean isIdle(Projection projection) {
+        return maxIdleNanos > 0
+                && projection.events.get(projection.events.size() - 1).getEventType() != AuditEventType.COMPLETED
+                && nanoClock.getAsLong() - projection.writtenAt > maxIdleNanos;
+    }
+
+    private static final class Projection {
+        private final List<AuditEvent> events = new ArrayList<>();
+        private long writtenAt;
+    }
+}
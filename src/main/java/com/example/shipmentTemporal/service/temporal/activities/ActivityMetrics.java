@@ -0,0 +1,72 @@
+package com.example.shipmentTemporal.service.temporal.activities;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.temporal.activity.Activity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Supplier;
+
+/**
+ * Worker-side timing of shipment activities. Complements the SDK's per-type
+ * temporal_activity_* metrics with the outcome of each attempt and the attempt number it
+ * succeeded or failed on.
+ */
+@Component
+@RequiredArgsConstructor
+public class ActivityMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    public <T> T record(String activity, Supplier<T> call) {
+        int attempt = Activity.getExecutionContext().getInfo().getAttempt();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            outcome = "failure";
+            throw e;
+        } finally {
+            stop(sample, activity, outcome, attempt);
+        }
+    }
+
+    /**
+     * Times an asynchronously completed attempt from subscription until the call settles. Must
+     * be called on the activity thread, where the execution context is available.
+     */
+    public <T> Mono<T> record(String activity, Mono<T> call) {
+        int attempt = Activity.getExecutionContext().getInfo().getAttempt();
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return call
+                    .doOnSuccess(result -> stop(sample, activity, "success", attempt))
+                    .doOnError(e -> stop(sample, activity, "failure", attempt));
+        });
+    }
+
+    public void record(String activity, Runnable call) {
+        record(activity, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private void stop(Timer.Sample sample, String activity, String outcome, int attempt) {
+        sample.stop(Timer.builder("shipment.activity.execution")
+                .description("Activity attempts, by activity and outcome")
+                .tag("activity", activity)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+        DistributionSummary.builder("shipment.activity.attempt")
+                .description("Attempt number of each activity execution")
+                .tag("activity", activity)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(attempt);
+    }
+}
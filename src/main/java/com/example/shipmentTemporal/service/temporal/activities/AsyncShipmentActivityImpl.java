@@ -0,0 +1,129 @@
+package com.example.shipmentTemporal.service.temporal.activities;
+
+import com.example.shipmentTemporal.clients.ReactiveShipmentClient;
+import com.example.shipmentTemporal.clients.RouteProvider;
+import com.example.shipmentTemporal.clients.ShipmentClient;
+import com.example.shipmentTemporal.models.CreateShipmentRequest;
+import com.example.shipmentTemporal.models.MoveRequest;
+import com.example.shipmentTemporal.models.RouteSnapshot;
+import io.temporal.activity.Activity;
+import io.temporal.activity.ActivityExecutionContext;
+import io.temporal.client.ActivityCompletionClient;
+import io.temporal.client.ActivityCompletionException;
+import io.temporal.spring.boot.ActivityImpl;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * {@link ShipmentActivity} on top of {@link ReactiveShipmentClient}. createShipment and
+ * moveShipment return as soon as the request is sent and complete through the
+ * {@link ActivityCompletionClient} when the response arrives, so an in-flight hop does not
+ * hold an activity executor thread. moveAlong heartbeats between its hops and so runs on the
+ * activity thread like the blocking implementation. Enabled with {@code shipment.activities.async-completion}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shipment.activities.async-completion", havingValue = "true")
+@ActivityImpl(taskQueues = {
+        "${shipment.task-queues.activity:shipment-activity-queue}",
+        "${shipment.task-queues.workflow:shipment-workflow-queue}"})
+public class AsyncShipmentActivityImpl implements ShipmentActivity {
+
+    private final ReactiveShipmentClient apiClient;
+    private final ShipmentClient shipmentClient;
+    private final RouteProvider routeProvider;
+    private final ActivityCompletionClient completionClient;
+    private final ActivityMetrics metrics;
+
+    /**
+     * Served from the route cache, so there is nothing to gain from completing it later.
+     */
+    @Override
+    public RouteSnapshot getRoute() {
+        try {
+            return metrics.record("getRoute", routeProvider::getRoute);
+        } catch (Exception e) {
+            log.error("Failed to fetch route", e);
+            throw DownstreamFailures.toActivityFailure(e);
+        }
+    }
+
+    @Override
+    public Integer createShipment(String handle) {
+        log.info("Creating shipment with handle: {}", handle);
+        CreateShipmentRequest request = CreateShipmentRequest.builder().handle(handle)
+                .name("Shipment-" + handle).build();
+        return complete("createShipment", apiClient.createShipment(request));
+    }
+
+    @Override
+    public void moveShipment(Integer shipmentId, String from, String to) {
+        MoveRequest moveRequest = MoveRequest.builder().shipmentId(shipmentId).from(from).to(to).build();
+        complete("moveShipment", apiClient.moveShipment(moveRequest));
+    }
+
+    @Override
+    public int moveAlong(Integer shipmentId, List<String> route, int fromIndex, int toIndex) {
+        log.info("Moving shipment {} from {} (idx {}) to {} (idx {})",
+                shipmentId, route.get(fromIndex), fromIndex, route.get(toIndex), toIndex);
+        return metrics.record("moveAlong", () -> HopRun.moveAlong(route, fromIndex, toIndex,
+                (from, to) -> apiClient.moveShipment(MoveRequest.builder().shipmentId(shipmentId).from(from).to(to).build())
+                        .block(),
+                () -> shipmentClient.getShipmentPosition(shipmentId)));
+    }
+
+    /**
+     * Subscribes to the call and completes the activity from its outcome. The completion
+     * calls block on gRPC, so they run on the bounded elastic scheduler rather than on the
+     * HTTP event loop. Local activities cannot complete asynchronously; they wait for the
+     * call in place.
+     */
+    private <T> T complete(String activity, Mono<T> call) {
+        ActivityExecutionContext context = Activity.getExecutionContext();
+        Mono<T> recorded = metrics.record(activity, call);
+        if (context.getInfo().isLocal()) {
+            try {
+                return recorded.block();
+            } catch (Exception e) {
+                log.error("{} failed", activity, e);
+                throw DownstreamFailures.toActivityFailure(e);
+            }
+        }
+
+        byte[] taskToken = context.getTaskToken();
+        context.doNotCompleteOnReturn();
+        recorded.map(Optional::ofNullable)
+                .defaultIfEmpty(Optional.empty())
+                .publishOn(Schedulers.boundedElastic())
+                .subscribe(
+                        result -> report(activity, () -> completionClient.complete(taskToken, result.orElse(null))),
+                        error -> {
+                            log.error("{} failed", activity, error);
+                            RuntimeException failure = error instanceof Exception e
+                                    ? DownstreamFailures.toActivityFailure(e)
+                                    : Activity.wrap(error);
+                            report(activity, () -> completionClient.completeExceptionally(taskToken, failure));
+                        });
+        return null;
+    }
+
+    /**
+     * The attempt may have timed out or been cancelled while the call was in flight; the
+     * server then rejects the completion and the retry policy has already taken over.
+     */
+    private static void report(String activity, Runnable completion) {
+        try {
+            completion.run();
+        } catch (ActivityCompletionException e) {
+            log.warn("Could not complete {}: {}", activity, e.getMessage());
+        }
+    }
+}
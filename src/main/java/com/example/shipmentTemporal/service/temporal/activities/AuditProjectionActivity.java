@@ -0,0 +1,18 @@
+package com.example.shipmentTemporal.service.temporal.activities;
+
+import com.example.shipmentTemporal.models.AuditEvent;
+import io.temporal.activity.ActivityInterface;
+import io.temporal.activity.ActivityMethod;
+
+import java.util.List;
+
+@ActivityInterface
+public interface AuditProjectionActivity {
+
+    /**
+     * Publishes audit events to the read-side projection; {@code fromSequence} is the
+     * position of the first event in the shipment's full trail.
+     */
+    @ActivityMethod
+    void publish(String workflowId, long fromSequence, List<AuditEvent> events);
+}
@@ -0,0 +1,28 @@
+package com.example.shipmentTemporal.service.temporal.activities;
+
+import com.example.shipmentTemporal.models.AuditEvent;
+import com.example.shipmentTemporal.service.audit.AuditEventStream;
+import com.example.shipmentTemporal.service.audit.AuditProjectionStore;
+import io.temporal.spring.boot.ActivityImpl;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Runs as a local activity, so it is registered on the workflow queue only.
+ */
+@Component
+@RequiredArgsConstructor
+@ActivityImpl(taskQueues = "${shipment.task-queues.workflow:shipment-workflow-queue}")
+public class AuditProjectionActivityImpl implements AuditProjectionActivity {
+
+    private final AuditProjectionStore store;
+    private final AuditEventStream stream;
+
+    @Override
+    public void publish(String workflowId, long fromSequence, List<AuditEvent> events) {
+        store.append(workflowId, fromSequence, events);
+        stream.published(workflowId);
+    }
+}
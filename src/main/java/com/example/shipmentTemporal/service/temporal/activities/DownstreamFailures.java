@@ -0,0 +1,58 @@
+package com.example.shipmentTemporal.service.temporal.activities;
+
+import com.example.shipmentTemporal.clients.DownstreamException;
+import io.temporal.activity.Activity;
+import io.temporal.failure.ApplicationFailure;
+
+/**
+ * Maps roulette client errors onto Temporal failures so the activity retry policy sees the
+ * real failure class: 4xx answers become non-retryable, and a Retry-After hint becomes the
+ * next retry delay instead of the fixed interval from the workflow's RetryOptions.
+ */
+final class DownstreamFailures {
+
+    static final String DOWNSTREAM_REJECTED = "DownstreamRejected";
+    static final String DOWNSTREAM_UNAVAILABLE = "DownstreamUnavailable";
+
+    private DownstreamFailures() {
+    }
+
+    static RuntimeException toActivityFailure(Exception e) {
+        return toActivityFailure(e, false);
+    }
+
+    /**
+     * @param retryConflicts treat 409 as transient; a rollback waiting for its waypoint to free
+     *                       up must keep retrying rather than give up
+     */
+    static RuntimeException toActivityFailure(Exception e, boolean retryConflicts) {
+        if (!(e instanceof DownstreamException downstream)) {
+            return Activity.wrap(e);
+        }
+        return classify(downstream, retryConflicts, downstream.getStatusCode());
+    }
+
+    /**
+     * Failure of one hop of {@link ShipmentActivity#moveAlong}, classified like a single move,
+     * with the status code (0 without a response) and the route index reached as details.
+     */
+    static ApplicationFailure toHopRunFailure(Exception e, int reachedIndex) {
+        if (!(e instanceof DownstreamException downstream)) {
+            return ApplicationFailure.newFailureWithCause(e.getMessage(), e.getClass().getName(), e, 0, reachedIndex);
+        }
+        return classify(downstream, false, downstream.getStatusCode(), reachedIndex);
+    }
+
+    private static ApplicationFailure classify(DownstreamException downstream, boolean retryConflicts, Object... details) {
+        if (!downstream.isRetryable() && !(retryConflicts && downstream.isConflict())) {
+            return ApplicationFailure.newNonRetryableFailureWithCause(
+                    downstream.getMessage(), DOWNSTREAM_REJECTED, downstream, details);
+        }
+        if (downstream.getRetryAfter() != null) {
+            return ApplicationFailure.newFailureWithCauseAndDelay(
+                    downstream.getMessage(), DOWNSTREAM_UNAVAILABLE, downstream, downstream.getRetryAfter(), details);
+        }
+        return ApplicationFailure.newFailureWithCause(
+                downstream.getMessage(), DOWNSTREAM_UNAVAILABLE, downstream, details);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.shipmentTemporal.service.temporal.activities;
+
+import com.example.shipmentTemporal.clients.DownstreamException;
+import io.temporal.activity.Activity;
+import io.temporal.activity.ActivityExecutionContext;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.IntSupplier;
+
+/**
+ * The hop loop behind {@link ShipmentActivity#moveAlong}, shared by both activity
+ * implementations. The route index reached is heartbeated after every hop, and a retried
+ * attempt starts from the last heartbeat. Heartbeats are throttled and an attempt can die
+ * between a move and its heartbeat, so a retry, and a move rejected with 409, first checks
+ * the position the roulette service has for the shipment.
+ */
+@Slf4j
+final class HopRun {
+
+    private HopRun() {
+    }
+
+    /**
+     * @param move     moves the shipment from one city to the next
+     * @param position looks up the shipment's route index on the roulette service
+     */
+    static int moveAlong(List<String> route, int fromIndex, int toIndex,
+                         BiConsumer<String, String> move, IntSupplier position) {
+        ActivityExecutionContext context = Activity.getExecutionContext();
+        int reached = Math.max(fromIndex, context.getHeartbeatDetails(Integer.class).orElse(fromIndex));
+        if (context.getInfo().getAttempt() > 1) {
+            reached = resync(reached, fromIndex, toIndex, position);
+        }
+        boolean resynced = false;
+        while (reached < toIndex) {
+            String from = route.get(reached);
+            String to = route.get(reached + 1);
+            try {
+                move.accept(from, to);
+            } catch (Exception e) {
+                if (!resynced && e instanceof DownstreamException downstream && downstream.isConflict()) {
+                    resynced = true;
+                    int actual = resync(reached, fromIndex, toIndex, position);
+                    if (actual != reached) {
+                        log.info("Shipment is at idx {}, not {}; resuming the run from there", actual, reached);
+                        reached = actual;
+                        context.heartbeat(reached);
+                        continue;
+                    }
+                }
+                log.error("Failed to move shipment from {} to {} (idx {} of run {}..{})",
+                        from, to, reached, fromIndex, toIndex, e);
+                throw DownstreamFailures.toHopRunFailure(e, reached);
+            }
+            reached++;
+            resynced = false;
+            context.heartbeat(reached);
+        }
+        return reached;
+    }
+
+    /**
+     * Positions outside the run, or a failed lookup, leave {@code reached} as it is; the next
+     * move then fails or succeeds on its own.
+     */
+    private static int resync(int reached, int fromIndex, int toIndex, IntSupplier position) {
+        try {
+            int actual = position.getAsInt();
+            if (actual >= fromIndex && actual <= toIndex) {
+                return actual;
+            }
+            log.warn("Shipment is at idx {}, outside the run {}..{}", actual, fromIndex, toIndex);
+        } catch (Exception e) {
+            log.warn("Could not look up the shipment position, resuming from idx {}: {}", reached, e.getMessage());
+        }
+        return reached;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.shipmentTemporal.service.temporal.activities;
 
+import com.example.shipmentTemporal.models.RouteSnapshot;
 import io.temporal.activity.ActivityInterface;
 import io.temporal.activity.ActivityMethod;
 
@@ -9,7 +10,7 @@ import java.util.List;
 public interface ShipmentActivity {
 
     @ActivityMethod
-    List<String> getRoute();
+    RouteSnapshot getRoute();
 
     @ActivityMethod
     Integer createShipment(String handle);
@@ -17,4 +18,13 @@ public interface ShipmentActivity {
     @ActivityMethod
     void moveShipment(Integer shipmentId, String from, String to);
 
+    /**
+     * Moves the shipment along {@code route} from index {@code fromIndex} to {@code toIndex},
+     * one hop after the other, and returns {@code toIndex}. The index reached is heartbeated
+     * after each hop and a retried attempt resumes from it. A failed hop fails the activity
+     * with the status code and the index reached as the failure details.
+     */
+    @ActivityMethod
+    int moveAlong(Integer shipmentId, List<String> route, int fromIndex, int toIndex);
+
 }
\ No newline at end of file
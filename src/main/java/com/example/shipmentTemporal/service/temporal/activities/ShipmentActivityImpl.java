@@ -1,13 +1,14 @@
 package com.example.shipmentTemporal.service.temporal.activities;
 
+import com.example.shipmentTemporal.clients.RouteProvider;
 import com.example.shipmentTemporal.clients.ShipmentClient;
 import com.example.shipmentTemporal.models.CreateShipmentRequest;
 import com.example.shipmentTemporal.models.MoveRequest;
-import io.temporal.activity.Activity;
-import io.temporal.failure.ApplicationFailure;
+import com.example.shipmentTemporal.models.RouteSnapshot;
 import io.temporal.spring.boot.ActivityImpl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -15,14 +16,24 @@ import java.util.List;
 @Slf4j
 @Component
 @RequiredArgsConstructor
-@ActivityImpl(taskQueues = "shipment-activity-queue")
+@ConditionalOnProperty(name = "shipment.activities.async-completion", havingValue = "false", matchIfMissing = true)
+@ActivityImpl(taskQueues = {
+        "${shipment.task-queues.activity:shipment-activity-queue}",
+        "${shipment.task-queues.workflow:shipment-workflow-queue}"})
 public class ShipmentActivityImpl implements ShipmentActivity {
 
     private final ShipmentClient apiClient;
+    private final RouteProvider routeProvider;
+    private final ActivityMetrics metrics;
 
     @Override
-    public List<String> getRoute() {
-        return apiClient.getRoute();
+    public RouteSnapshot getRoute() {
+        try {
+            return metrics.record("getRoute", routeProvider::getRoute);
+        } catch (Exception e) {
+            log.error("Failed to fetch route", e);
+            throw DownstreamFailures.toActivityFailure(e);
+        }
     }
 
     @Override
@@ -32,10 +43,10 @@ public class ShipmentActivityImpl implements ShipmentActivity {
         try {
             CreateShipmentRequest request = CreateShipmentRequest.builder().handle(handle)
                     .name("Shipment-" + handle).build();
-            return apiClient.createShipment(request);
+            return metrics.record("createShipment", () -> apiClient.createShipment(request));
         } catch (Exception e) {
             log.error("Failed to create shipment", e);
-            throw Activity.wrap(e);
+            throw DownstreamFailures.toActivityFailure(e);
         }
     }
 
@@ -43,12 +54,21 @@ public class ShipmentActivityImpl implements ShipmentActivity {
     public void moveShipment(Integer shipmentId, String from, String to) {
         try {
             MoveRequest moveRequest = MoveRequest.builder().shipmentId(shipmentId).from(from).to(to).build();
-            apiClient.moveShipment(moveRequest);
+            metrics.record("moveShipment", () -> apiClient.moveShipment(moveRequest));
             log.info("Successfully moved shipment from {} to {}", from, to);
         } catch (Exception e) {
             log.error("Failed to move shipment from {} to {}", from, to, e);
-            throw Activity.wrap(e);
+            throw DownstreamFailures.toActivityFailure(e);
         }
     }
 
+    @Override
+    public int moveAlong(Integer shipmentId, List<String> route, int fromIndex, int toIndex) {
+        log.info("Moving shipment {} from {} (idx {}) to {} (idx {})",
+                shipmentId, route.get(fromIndex), fromIndex, route.get(toIndex), toIndex);
+        return metrics.record("moveAlong", () -> HopRun.moveAlong(route, fromIndex, toIndex,
+                (from, to) -> apiClient.moveShipment(MoveRequest.builder().shipmentId(shipmentId).from(from).to(to).build()),
+                () -> apiClient.getShipmentPosition(shipmentId)));
+    }
+
 }
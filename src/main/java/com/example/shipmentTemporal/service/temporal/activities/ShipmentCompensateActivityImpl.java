@@ -1,32 +1,79 @@
 package com.example.shipmentTemporal.service.temporal.activities;
 
-import com.example.shipmentTemporal.clients.ShipmentClient;
+import com.example.shipmentTemporal.clients.ReactiveShipmentClient;
 import com.example.shipmentTemporal.models.MoveRequest;
 import io.temporal.activity.Activity;
+import io.temporal.activity.ActivityExecutionContext;
+import io.temporal.client.ActivityCompletionException;
 import io.temporal.spring.boot.ActivityImpl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Moves a shipment back one hop. The call goes through {@link ReactiveShipmentClient} while the
+ * activity thread heartbeats, so the server notices a dead worker within the heartbeat timeout,
+ * and a cancelled or timed-out attempt aborts the request instead of waiting for it. It
+ * polls its own compensation queue, and the activity queue for executions that predate it.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
-@ActivityImpl(taskQueues = "shipment-activity-queue")
+@ActivityImpl(taskQueues = {
+        "${shipment.task-queues.compensation:shipment-compensation-queue}",
+        "${shipment.task-queues.activity:shipment-activity-queue}"})
 public class ShipmentCompensateActivityImpl implements ShipmentCompensationActivity {
 
-    private final ShipmentClient apiClient;
+    private static final Duration DEFAULT_HEARTBEAT_INTERVAL = Duration.ofSeconds(1);
+
+    private final ReactiveShipmentClient apiClient;
+    private final ActivityMetrics metrics;
+
     @Override
     public void compensateMove(Integer shipmentId, String from, String to) {
         log.info("Compensating move for shipment {} from {}", shipmentId, from);
+        ActivityExecutionContext context = Activity.getExecutionContext();
+        MoveRequest moveRequest = MoveRequest.builder().shipmentId(shipmentId).from(from).to(to).build();
+        CompletableFuture<Void> move = metrics.record("compensateMove", apiClient.moveShipment(moveRequest)).toFuture();
+        long interval = heartbeatInterval(context).toMillis();
         try {
-            MoveRequest moveRequest = MoveRequest.builder().shipmentId(shipmentId).from(from).to(to).build();
-            apiClient.moveShipment(moveRequest);
+            while (true) {
+                try {
+                    move.get(interval, TimeUnit.MILLISECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    context.heartbeat(null);
+                }
+            }
             log.info("Successfully compensated shipment from {} to {}", from, to);
-        } catch (Exception e) {
-            log.error("Failed to compensated shipment from {} to {}", from, to, e);
+        } catch (ActivityCompletionException e) {
+            // Cancelled, or the attempt is already over on the server
+            move.cancel(true);
+            log.warn("Compensation of shipment {} from {} to {} stopped: {}", shipmentId, from, to, e.getMessage());
+            throw e;
+        } catch (InterruptedException e) {
+            move.cancel(true);
+            Thread.currentThread().interrupt();
             throw Activity.wrap(e);
+        } catch (ExecutionException e) {
+            log.error("Failed to compensate shipment from {} to {}", from, to, e.getCause());
+            throw DownstreamFailures.toActivityFailure(
+                    e.getCause() instanceof Exception cause ? cause : e, true);
         }
     }
 
-
+    /**
+     * A third of the heartbeat timeout, so a heartbeat or two may be delayed without the
+     * attempt being timed out.
+     */
+    private static Duration heartbeatInterval(ActivityExecutionContext context) {
+        Duration timeout = context.getInfo().getHeartbeatTimeout();
+        return timeout == null || timeout.isZero() ? DEFAULT_HEARTBEAT_INTERVAL : timeout.dividedBy(3);
+    }
 }
@@ -0,0 +1,22 @@
+package com.example.shipmentTemporal.service.temporal.activities;
+
+import com.example.shipmentTemporal.models.WaypointOccupancy;
+import io.temporal.activity.ActivityInterface;
+import io.temporal.activity.ActivityMethod;
+
+@ActivityInterface
+public interface WaypointActivity {
+
+    /**
+     * Queues the shipment workflow for a slot at the waypoint, starting the waypoint's
+     * workflow if it is not running yet. The grant arrives later as a signal.
+     */
+    @ActivityMethod
+    void requestSlot(String waypoint, String shipmentWorkflowId);
+
+    /**
+     * Current occupant of the waypoint according to the roulette service.
+     */
+    @ActivityMethod
+    WaypointOccupancy getOccupancy(String city);
+}
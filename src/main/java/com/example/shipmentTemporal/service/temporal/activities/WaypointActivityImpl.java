@@ -0,0 +1,63 @@
+package com.example.shipmentTemporal.service.temporal.activities;
+
+import com.example.shipmentTemporal.clients.ShipmentClient;
+import com.example.shipmentTemporal.configs.TaskQueueProperties;
+import com.example.shipmentTemporal.models.ShipmentWorkflowSettings;
+import com.example.shipmentTemporal.models.WaypointOccupancy;
+import com.example.shipmentTemporal.models.WaypointState;
+import com.example.shipmentTemporal.service.temporal.workflows.WaypointWorkflow;
+import io.temporal.client.BatchRequest;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.spring.boot.ActivityImpl;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Waypoint coordination for shipment workflows. A workflow cannot signal-with-start another
+ * workflow itself, so slots are requested through here; occupancy lookups back the next-hop
+ * lookahead.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ActivityImpl(taskQueues = "${shipment.task-queues.activity:shipment-activity-queue}")
+public class WaypointActivityImpl implements WaypointActivity {
+
+    private final WorkflowClient workflowClient;
+    private final ShipmentWorkflowSettings settings;
+    private final TaskQueueProperties taskQueues;
+    private final ShipmentClient apiClient;
+    private final ActivityMetrics metrics;
+
+    @Override
+    public void requestSlot(String waypoint, String shipmentWorkflowId) {
+        log.info("Shipment {} requesting a slot at {}", shipmentWorkflowId, waypoint);
+        WaypointWorkflow waypointWorkflow = workflowClient.newWorkflowStub(WaypointWorkflow.class,
+                WorkflowOptions.newBuilder()
+                        .setWorkflowId(WaypointWorkflow.workflowId(waypoint))
+                        .setTaskQueue(taskQueues.getWorkflow())
+                        .build());
+        WaypointState initial = WaypointState.builder()
+                .waypoint(waypoint)
+                .capacity(settings.getWaypointCapacity())
+                .continueAsNewAfterEvents(settings.getContinueAsNewAfterEvents())
+                .holderCheckInterval(settings.getWaypointHolderCheckInterval())
+                .build();
+        BatchRequest request = workflowClient.newSignalWithStartRequest();
+        request.add(waypointWorkflow::run, initial);
+        request.add(waypointWorkflow::requestSlot, shipmentWorkflowId);
+        workflowClient.signalWithStart(request);
+    }
+
+    @Override
+    public WaypointOccupancy getOccupancy(String city) {
+        try {
+            return metrics.record("getOccupancy", () -> apiClient.getWaypointOccupancy(city));
+        } catch (Exception e) {
+            log.error("Failed to fetch occupancy of {}", city, e);
+            throw DownstreamFailures.toActivityFailure(e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.shipmentTemporal.service.temporal.workflows;
+
+import io.temporal.api.enums.v1.SignalExternalWorkflowExecutionFailedCause;
+import io.temporal.failure.ApplicationFailure;
+import io.temporal.workflow.SignalExternalWorkflowException;
+
+/**
+ * Failures of signals the shipment and waypoint workflows send each other.
+ */
+final class ExternalSignals {
+
+    private static final String NOT_FOUND = SignalExternalWorkflowExecutionFailedCause
+            .SIGNAL_EXTERNAL_WORKFLOW_EXECUTION_FAILED_CAUSE_EXTERNAL_WORKFLOW_EXECUTION_NOT_FOUND.name();
+
+    private ExternalSignals() {
+    }
+
+    /**
+     * Whether the signal failed because the target workflow is not running. The SDK reports
+     * this as an ApplicationFailure typed with the failure cause rather than as a
+     * SignalExternalWorkflowException.
+     */
+    static boolean isTargetGone(RuntimeException e) {
+        return e instanceof SignalExternalWorkflowException
+                || (e instanceof ApplicationFailure failure && NOT_FOUND.equals(failure.getType()));
+    }
+}
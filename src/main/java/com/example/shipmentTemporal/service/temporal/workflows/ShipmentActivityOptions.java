@@ -0,0 +1,109 @@
+package com.example.shipmentTemporal.service.temporal.workflows;
+
+import com.example.shipmentTemporal.models.ShipmentWorkflowSettings;
+import io.temporal.activity.ActivityOptions;
+import io.temporal.activity.LocalActivityOptions;
+import io.temporal.common.RetryOptions;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The activity options ShipmentWorkflowImpl schedules with, built once per distinct settings
+ * and shared by every execution started with them, along with the settings instance itself.
+ * Options are immutable; the stubs made from them are bound to their execution and cannot be
+ * shared.
+ */
+public record ShipmentActivityOptions(
+        ShipmentWorkflowSettings settings,
+        ActivityOptions activity,
+        ActivityOptions compensation,
+        ActivityOptions waypoint,
+        ActivityOptions lookahead,
+        ActivityOptions hopRun,
+        LocalActivityOptions localActivity,
+        LocalActivityOptions auditProjection) {
+
+    /**
+     * Settings come from the application config, so only a handful of distinct ones exist at a
+     * time; this only bounds the cache if they keep changing.
+     */
+    private static final int MAX_CACHED = 64;
+    private static final Map<ShipmentWorkflowSettings, ShipmentActivityOptions> CACHE = new ConcurrentHashMap<>();
+
+    private static final LocalActivityOptions AUDIT_PROJECTION = LocalActivityOptions.newBuilder()
+            .setStartToCloseTimeout(Duration.ofSeconds(2))
+            .setRetryOptions(RetryOptions.newBuilder()
+                    .setMaximumAttempts(3)
+                    .build())
+            .build();
+
+    /**
+     * The shared options for settings equal to {@code settings}. The settings must not be
+     * modified afterwards.
+     */
+    public static ShipmentActivityOptions forSettings(ShipmentWorkflowSettings settings) {
+        ShipmentActivityOptions options = CACHE.get(settings);
+        if (options != null) {
+            return options;
+        }
+        if (CACHE.size() >= MAX_CACHED) {
+            CACHE.clear();
+        }
+        return CACHE.computeIfAbsent(settings, ShipmentActivityOptions::build);
+    }
+
+    private static ShipmentActivityOptions build(ShipmentWorkflowSettings settings) {
+        ActivityOptions activity = ActivityOptions.newBuilder()
+                .setStartToCloseTimeout(Duration.ofSeconds(30))
+                .setTaskQueue(settings.getActivityTaskQueue())
+                .setRetryOptions(RetryOptions.newBuilder()
+                        .setMaximumAttempts(3)
+                        .setInitialInterval(Duration.ofSeconds(2))
+                        .setMaximumInterval(Duration.ofSeconds(5))
+                        .build())
+                .build();
+
+        // Compensations retry until they go through, but each attempt is bounded and heartbeats,
+        // so a hung call or a dead worker is rescheduled within seconds
+        ActivityOptions compensation = ActivityOptions.newBuilder()
+                .setStartToCloseTimeout(settings.getCompensationAttemptTimeout())
+                .setHeartbeatTimeout(settings.getCompensationHeartbeatTimeout())
+                .setTaskQueue(settings.getCompensationTaskQueue() != null
+                        ? settings.getCompensationTaskQueue() : settings.getActivityTaskQueue())
+                .setRetryOptions(RetryOptions.newBuilder()
+                        .setMaximumAttempts(0)
+                        .setInitialInterval(Duration.ofSeconds(2))
+                        .setMaximumInterval(Duration.ofSeconds(5))
+                        .build())
+                .build();
+
+        ActivityOptions waypoint = ActivityOptions.newBuilder()
+                .setStartToCloseTimeout(Duration.ofSeconds(10))
+                .setTaskQueue(settings.getActivityTaskQueue())
+                .build();
+        ActivityOptions lookahead = ActivityOptions.newBuilder()
+                .setStartToCloseTimeout(Duration.ofSeconds(5))
+                .setTaskQueue(settings.getActivityTaskQueue())
+                .setRetryOptions(RetryOptions.newBuilder()
+                        .setMaximumAttempts(2)
+                        .build())
+                .build();
+        ActivityOptions hopRun = ActivityOptions.newBuilder(activity)
+                .setStartToCloseTimeout(activity.getStartToCloseTimeout()
+                        .multipliedBy(Math.max(1, settings.getMaxHopsPerActivity())))
+                .setHeartbeatTimeout(settings.getHopHeartbeatTimeout())
+                .build();
+        LocalActivityOptions localActivity = LocalActivityOptions.newBuilder()
+                .setStartToCloseTimeout(settings.getLocalActivityTimeout())
+                .setScheduleToCloseTimeout(settings.getLocalActivityTimeout().multipliedBy(2))
+                .setRetryOptions(RetryOptions.newBuilder()
+                        .setMaximumAttempts(2)
+                        .setInitialInterval(Duration.ofMillis(200))
+                        .build())
+                .build();
+        return new ShipmentActivityOptions(settings, activity, compensation, waypoint, lookahead, hopRun,
+                localActivity, AUDIT_PROJECTION);
+    }
+}
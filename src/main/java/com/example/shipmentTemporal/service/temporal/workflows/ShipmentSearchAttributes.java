@@ -0,0 +1,24 @@
+package com.example.shipmentTemporal.service.temporal.workflows;
+
+import io.temporal.common.SearchAttributeKey;
+
+import java.util.List;
+
+/**
+ * Custom search attributes kept up to date by the shipment workflow, so shipments can be
+ * listed and filtered through the visibility API. They have to be registered on the namespace
+ * before the workflow may upsert them (see docker-compose.yml).
+ */
+public final class ShipmentSearchAttributes {
+
+    public static final SearchAttributeKey<String> STATUS = SearchAttributeKey.forKeyword("ShipmentStatus");
+    public static final SearchAttributeKey<Long> HOP_INDEX = SearchAttributeKey.forLong("ShipmentHopIndex");
+    public static final SearchAttributeKey<String> CITY = SearchAttributeKey.forKeyword("ShipmentCity");
+    public static final SearchAttributeKey<Long> RETRY_CYCLE = SearchAttributeKey.forLong("ShipmentRetryCycle");
+    public static final SearchAttributeKey<Long> COMPENSATIONS = SearchAttributeKey.forLong("ShipmentCompensations");
+
+    public static final List<SearchAttributeKey<?>> ALL = List.of(STATUS, HOP_INDEX, CITY, RETRY_CYCLE, COMPENSATIONS);
+
+    private ShipmentSearchAttributes() {
+    }
+}
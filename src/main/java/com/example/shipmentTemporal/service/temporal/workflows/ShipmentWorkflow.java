@@ -1,17 +1,60 @@
 package com.example.shipmentTemporal.service.temporal.workflows;
 
 import com.example.shipmentTemporal.models.AuditEvent;
+import com.example.shipmentTemporal.models.ShipmentCheckpoint;
+import com.example.shipmentTemporal.models.ShipmentProgress;
+import com.example.shipmentTemporal.models.ShipmentStarted;
+import com.example.shipmentTemporal.models.StartMilestone;
 import io.temporal.workflow.QueryMethod;
+import io.temporal.workflow.SignalMethod;
+import io.temporal.workflow.UpdateMethod;
 import io.temporal.workflow.WorkflowInterface;
 import io.temporal.workflow.WorkflowMethod;
 import java.util.List;
 
 @WorkflowInterface
 public interface ShipmentWorkflow {
+
+    /**
+     * Memo key under which the starter passes {@link com.example.shipmentTemporal.models.ShipmentWorkflowSettings}.
+     */
+    String SETTINGS_MEMO_KEY = "settings";
+
+    /**
+     * Signal a {@link WaypointWorkflow} sends once the shipment holds a slot at the waypoint.
+     */
+    String SLOT_GRANTED_SIGNAL = "slotGranted";
+
+    /**
+     * Signal a {@link WaypointWorkflow} sends to its holders while others wait for the slot; a
+     * holder that can no longer be signalled has ended without releasing it.
+     */
+    String SLOT_CHECK_SIGNAL = "slotCheck";
     
+    /**
+     * @param checkpoint null for a new shipment; set by the previous run when the workflow
+     *                   continued as new. Executions started with only the handle read it as
+     *                   null, so they keep replaying.
+     */
     @WorkflowMethod
-    String executeShipment(String shipmentHandle);
+    String executeShipment(String shipmentHandle, ShipmentCheckpoint checkpoint);
     
+    /**
+     * Completes once the shipment reached the milestone; sent with the start through
+     * update-with-start so the starter learns the shipment ID without polling.
+     */
+    @UpdateMethod
+    ShipmentStarted awaitStart(StartMilestone milestone);
+
+    @SignalMethod(name = SLOT_GRANTED_SIGNAL)
+    void slotGranted(String waypoint);
+
+    @SignalMethod(name = SLOT_CHECK_SIGNAL)
+    void slotCheck(String waypoint);
+
     @QueryMethod
     List<AuditEvent> getAuditTrail();
+
+    @QueryMethod
+    ShipmentProgress getProgress();
 }
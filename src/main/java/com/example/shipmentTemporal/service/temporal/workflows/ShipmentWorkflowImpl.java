@@ -1,68 +1,139 @@
 package com.example.shipmentTemporal.service.temporal.workflows;
 
 import com.example.shipmentTemporal.models.AuditEvent;
+import com.example.shipmentTemporal.models.AuditLog;
+import com.example.shipmentTemporal.models.CompactRoute;
+import com.example.shipmentTemporal.models.RouteSnapshot;
+import com.example.shipmentTemporal.models.ShipmentCheckpoint;
+import com.example.shipmentTemporal.models.ShipmentProgress;
+import com.example.shipmentTemporal.models.ShipmentStarted;
+import com.example.shipmentTemporal.models.ShipmentStatus;
+import com.example.shipmentTemporal.models.ShipmentWorkflowSettings;
+import com.example.shipmentTemporal.models.StartMilestone;
+import com.example.shipmentTemporal.models.WaypointOccupancy;
+import com.example.shipmentTemporal.service.temporal.activities.AuditProjectionActivity;
 import com.example.shipmentTemporal.service.temporal.activities.ShipmentActivity;
 import com.example.shipmentTemporal.service.temporal.activities.ShipmentCompensationActivity;
-import io.temporal.activity.ActivityOptions;
+import com.example.shipmentTemporal.service.temporal.activities.WaypointActivity;
 import io.temporal.api.enums.v1.RetryState;
-import io.temporal.common.RetryOptions;
+import io.temporal.common.converter.Values;
 import io.temporal.failure.ActivityFailure;
+import io.temporal.failure.ApplicationFailure;
+import io.temporal.failure.TemporalFailure;
+import io.temporal.failure.TimeoutFailure;
 import io.temporal.spring.boot.WorkflowImpl;
+import io.temporal.workflow.Async;
+import io.temporal.workflow.ContinueAsNewOptions;
+import io.temporal.workflow.Promise;
 import io.temporal.workflow.Saga;
+import io.temporal.workflow.SignalExternalWorkflowException;
 import io.temporal.workflow.Workflow;
+import io.temporal.workflow.WorkflowInfo;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
-@WorkflowImpl(taskQueues = "shipment-workflow-queue")
+@WorkflowImpl(taskQueues = "${shipment.task-queues.workflow:shipment-workflow-queue}")
 @Slf4j
 public class ShipmentWorkflowImpl implements ShipmentWorkflow {
 
-    private final List<AuditEvent> auditTrail = new ArrayList<>();
-
-    private final ActivityOptions activityOptions = ActivityOptions.newBuilder()
-            .setStartToCloseTimeout(Duration.ofSeconds(30))
-            .setTaskQueue("shipment-activity-queue")
-            .setRetryOptions(RetryOptions.newBuilder()
-                    .setMaximumAttempts(3)
-                    .setInitialInterval(Duration.ofSeconds(2))
-                    .setMaximumInterval(Duration.ofSeconds(5))
-                    .build())
-            .build();
-
-    private final ActivityOptions activityOptionsCompensation = ActivityOptions.newBuilder()
-            .setStartToCloseTimeout(Duration.ofDays(30))
-            .setTaskQueue("shipment-activity-queue")
-            .setRetryOptions(RetryOptions.newBuilder()
-                    .setMaximumAttempts(0)
-                    .setInitialInterval(Duration.ofSeconds(2))
-                    .setMaximumInterval(Duration.ofSeconds(5))
-                    .build())
-            .build();
-
-    private final ShipmentActivity activity =
-            Workflow.newActivityStub(ShipmentActivity.class, activityOptions);
-
-    private final ShipmentCompensationActivity compensationActivity =
-            Workflow.newActivityStub(ShipmentCompensationActivity.class, activityOptionsCompensation);
+    private static final ShipmentWorkflowSettings DEFAULT_SETTINGS = new ShipmentWorkflowSettings();
+    /**
+     * Version 1 fetches the route through a local activity. Executions recorded before it have
+     * no marker and keep scheduling getRoute as a regular activity.
+     */
+    private static final String LOCAL_ROUTE_FETCH = "local-route-fetch";
+
+    private ShipmentWorkflowSettings settings = DEFAULT_SETTINGS;
+    private AuditLog auditLog = new AuditLog();
+    private CompactRoute route = CompactRoute.EMPTY;
+    private Integer shipmentId;
+    private int currentIndex;
+    private int retryCycle;
+    private int compensations;
+    private ShipmentStatus status = ShipmentStatus.CREATING;
+    private int run;
+    private long startedAt;
+    private final Set<String> reservedWaypoints = new LinkedHashSet<>();
+    private String requestedWaypoint;
+
+    private ShipmentActivity activity;
+    private ShipmentActivity hopRunActivity;
+    private ShipmentCompensationActivity compensationActivity;
+    private ShipmentActivity localActivity;
+    private ShipmentActivity routeActivity;
+    private WaypointActivity waypointActivity;
+    private WaypointActivity lookaheadActivity;
+    private Promise<WaypointOccupancy> lookahead;
+    private AuditProjectionActivity auditProjectionActivity;
+    private long auditPublished;
+    private int lookaheadIndex = -1;
+    private boolean continuingAsNew;
+    private List<Object> indexed = List.of();
 
     @Override
-    public String executeShipment(String shipmentHandle) {
-        List<String> route = activity.getRoute();
-        log.info("Starting shipment workflow for handle: {} with route: {}", shipmentHandle, route);
-        Integer shipmentId = activity.createShipment(shipmentHandle);
-        log.info("Shipment created with ID: {}", shipmentId);
-        
-        auditTrail.add(AuditEvent.created(shipmentHandle));
+    public String executeShipment(String shipmentHandle, ShipmentCheckpoint checkpoint) {
+        ShipmentWorkflowSettings memoSettings = Workflow.getMemo(SETTINGS_MEMO_KEY,
+                ShipmentWorkflowSettings.class, ShipmentWorkflowSettings.class);
+        // Executions with equal settings share one settings instance and one set of options
+        ShipmentActivityOptions options = ShipmentActivityOptions.forSettings(
+                memoSettings != null ? memoSettings : DEFAULT_SETTINGS);
+        settings = options.settings();
+        createActivityStubs(options);
+        try {
+            return ship(shipmentHandle, checkpoint);
+        } catch (TemporalFailure e) {
+            // Failed or cancelled: the run ends here, so its waypoint slots must not outlive it
+            Workflow.newDetachedCancellationScope(this::releaseAll).run();
+            throw e;
+        }
+    }
 
-        int currentIndex = 0;
-        int retryCycle = 0;
+    private String ship(String shipmentHandle, ShipmentCheckpoint checkpoint) {
+        if (checkpoint == null) {
+            auditLog = new AuditLog(shipmentHandle, settings.getAuditMaxEvents());
+            route = CompactRoute.of(fetchRoute());
+            log.info("Starting shipment workflow for handle: {} with route: {} (version {})",
+                    shipmentHandle, route, route.version());
+            reserve(route.get(0));
+            lookAhead(1);
+            shipmentId = call(a -> a.createShipment(shipmentHandle));
+            log.info("Shipment created with ID: {}", shipmentId);
+
+            startedAt = Workflow.getInfo().getRunStartedTimestampMillis();
+            auditLog.created(now());
+        } else {
+            route = CompactRoute.of(checkpoint.getRoute());
+            shipmentId = checkpoint.getShipmentId();
+            currentIndex = checkpoint.getCurrentIndex();
+            retryCycle = checkpoint.getRetryCycle();
+            compensations = checkpoint.getCompensations();
+            auditLog = checkpoint.getAuditLog();
+            run = checkpoint.getRun();
+            startedAt = checkpoint.getStartedAt();
+            auditPublished = checkpoint.getAuditPublished();
+            if (checkpoint.getReservedWaypoints() != null) {
+                reservedWaypoints.addAll(checkpoint.getReservedWaypoints());
+            }
+            log.info("Resuming shipment {} (ID {}) at {} (idx {}), run {}",
+                    shipmentHandle, shipmentId, route.get(currentIndex), currentIndex, run);
+        }
+        status = ShipmentStatus.IN_TRANSIT;
 
         Saga.Options sagaOptions = new Saga.Options.Builder().build();
         Saga saga;
         while (currentIndex < route.size() - 1) {
+            publishAudit();
+            indexProgress();
+            if (isHistoryBudgetSpent()) {
+                return continueAsNew(shipmentHandle);
+            }
             saga = new Saga(sagaOptions);
             String fromCity = route.get(currentIndex);
             String toCity = route.get(currentIndex + 1);
@@ -70,32 +141,72 @@ public class ShipmentWorkflowImpl implements ShipmentWorkflow {
             log.info("Moving from {} (idx {}) to {} (idx {}) - Retry cycle: {}",
                     fromCity, currentIndex, toCity, currentIndex + 1, retryCycle);
 
+            reserve(toCity);
+            awaitWaypoint(currentIndex + 1);
+            lookAhead(currentIndex + 2);
+            long hopStarted = Workflow.currentTimeMillis();
+            int runEnd = hopRunEnd();
+            String hopTimer = runEnd > currentIndex + 1 ? "shipment.hop.run.latency" : "shipment.hop.latency";
             try {
-                registerCompensation(route, currentIndex, saga, shipmentId);
-                activity.moveShipment(shipmentId, fromCity, toCity);
-                auditTrail.add(AuditEvent.moved(fromCity, toCity));
+                if (!settings.isWaypointReservations()) {
+                    registerCompensation(saga);
+                }
+                if (runEnd > currentIndex + 1) {
+                    int from = currentIndex;
+                    hopRunActivity.moveAlong(shipmentId, route, from, runEnd);
+                    recordHop(hopTimer, "success", hopStarted);
+                    advanceTo(runEnd);
+                    log.info("Successfully moved from {} to {}. Current index: {}", route.get(from), route.get(runEnd), runEnd);
+                    continue;
+                }
+                call(a -> {
+                    a.moveShipment(shipmentId, fromCity, toCity);
+                    return null;
+                });
+                recordHop(hopTimer, "success", hopStarted);
+                release(fromCity);
+                auditLog.moved(currentIndex, currentIndex + 1, now());
                 if (currentIndex + 1 == route.size() - 1) {
-                    auditTrail.add(AuditEvent.completed(route.get(0), toCity));
+                    auditLog.completed(0, currentIndex + 1, now());
                 }
 
                 log.info("Successfully moved to {}. Current index: {}", toCity, currentIndex + 1);
                 currentIndex++;
                 retryCycle = 0;
             } catch (ActivityFailure e) {
-                if (e.getRetryState() == RetryState.RETRY_STATE_MAXIMUM_ATTEMPTS_REACHED) {
+                if (runEnd > currentIndex + 1) {
+                    int reached = reachedIndex(e);
+                    if (reached > currentIndex) {
+                        // The hops before the failed one stand; compensation starts from the
+                        // failed hop as if they had been moved one by one
+                        log.info("Hop run moved from idx {} to {} before failing", currentIndex, reached);
+                        advanceTo(reached);
+                        saga = new Saga(sagaOptions);
+                        registerCompensation(saga);
+                    }
+                }
+                if (isHopExhausted(e)) {
                     log.error("Failed to move from {} to {} after all retry attempts. Starting compensation...",
-                            fromCity, toCity, e);
+                            route.get(currentIndex), route.get(currentIndex + 1), e);
 
-                    auditTrail.add(AuditEvent.failed(fromCity, toCity, e.getMessage()));
+                    recordHop(hopTimer, "failure", hopStarted);
+                    lookahead = null;
+                    auditLog.failed(currentIndex, currentIndex + 1, failureReason(e), now());
 
-                    if (currentIndex == 0) {
-                        log.error("Failed at origin (first hop). Cannot rollback further.");
+                    if (currentIndex == 0 || settings.isWaypointReservations()) {
+                        // With reservations the failure is not a capacity clash, so the booked
+                        // slots are kept and the same hop is retried after the backoff
+                        log.error(currentIndex == 0 ? "Failed at origin (first hop). Cannot rollback further."
+                                : "Retrying hop after backoff, keeping the reserved waypoints.");
                         retryCycle++;
-                        long backoffSeconds = Math.min(60, (long) Math.pow(2, retryCycle));
-                        Workflow.sleep(Duration.ofSeconds(backoffSeconds));
+                        backOff(Math.min(60, (long) Math.pow(2, retryCycle)));
                         continue;
                     }
+                    status = ShipmentStatus.COMPENSATING;
+                    indexProgress();
                     saga.compensate();
+                    compensations++;
+                    Workflow.getMetricsScope().counter("shipment.compensations").inc(1);
 
                     currentIndex--;
                     retryCycle++;
@@ -103,7 +214,7 @@ public class ShipmentWorkflowImpl implements ShipmentWorkflow {
                     long backoffSeconds = Math.min(60, (long) Math.pow(2, retryCycle));
                     log.info("Retry cycle {}: Waiting {} seconds before resuming from index {}",
                             retryCycle, backoffSeconds, currentIndex);
-                    Workflow.sleep(Duration.ofSeconds(backoffSeconds));
+                    backOff(backoffSeconds);
 
                     log.info("Resuming from {} (idx {}) after compensation", route.get(currentIndex), currentIndex);
                 }
@@ -111,26 +222,429 @@ public class ShipmentWorkflowImpl implements ShipmentWorkflow {
         }
 
         String finalLocation = route.get(route.size() - 1);
+        // The roulette service frees the destination on arrival, so its slot goes back too
+        release(finalLocation);
+        status = ShipmentStatus.DELIVERED;
+        publishAudit();
+        indexProgress();
+        Workflow.getMetricsScope().timer("shipment.duration")
+                .record(com.uber.m3.util.Duration.ofMillis(Workflow.currentTimeMillis() - startedAt));
         log.info("Shipment successfully delivered to final destination: {}", finalLocation);
         return String.format("Shipment %s delivered successfully to %s", shipmentHandle, finalLocation);
     }
 
-    private void registerCompensation(List<String> route, int currentIndex, Saga saga, Integer shipmentId) {
-        if (currentIndex == 0) {
+    /**
+     * Runs a ShipmentActivity call locally when local-activity mode is on. A local call that
+     * fails for any reason other than a non-retryable downstream rejection is repeated as a
+     * regular activity, which has the longer timeout and full retry policy.
+     */
+    private <T> T call(Function<ShipmentActivity, T> invocation) {
+        if (localActivity != null) {
+            try {
+                return invocation.apply(localActivity);
+            } catch (ActivityFailure e) {
+                if (e.getRetryState() == RetryState.RETRY_STATE_NON_RETRYABLE_FAILURE) {
+                    throw e;
+                }
+                log.warn("Local activity failed ({}), falling back to activity queue", failureReason(e));
+            }
+        }
+        return invocation.apply(activity);
+    }
+
+    /**
+     * The route is served from the worker's RouteProvider cache, so a local activity saves the
+     * round trip through the activity queue. A failed local fetch is repeated as a regular
+     * activity.
+     */
+    private RouteSnapshot fetchRoute() {
+        if (Workflow.getVersion(LOCAL_ROUTE_FETCH, Workflow.DEFAULT_VERSION, 1) == Workflow.DEFAULT_VERSION) {
+            return call(ShipmentActivity::getRoute);
+        }
+        try {
+            return routeActivity.getRoute();
+        } catch (ActivityFailure e) {
+            log.warn("Local route fetch failed ({}), falling back to activity queue", failureReason(e));
+            return activity.getRoute();
+        }
+    }
+
+    /**
+     * Stubs are built once the memo settings are known, since they name the activity queue.
+     * Stubs for features the settings leave off are not created at all.
+     */
+    private void createActivityStubs(ShipmentActivityOptions options) {
+        activity = Workflow.newActivityStub(ShipmentActivity.class, options.activity());
+        compensationActivity = Workflow.newActivityStub(ShipmentCompensationActivity.class, options.compensation());
+        if (settings.isWaypointReservations()) {
+            waypointActivity = Workflow.newActivityStub(WaypointActivity.class, options.waypoint());
+        }
+        if (isLookaheadOn()) {
+            lookaheadActivity = Workflow.newActivityStub(WaypointActivity.class, options.lookahead());
+        }
+        if (isHopRunOn()) {
+            hopRunActivity = Workflow.newActivityStub(ShipmentActivity.class, options.hopRun());
+        }
+        if (settings.isLocalActivities()) {
+            localActivity = Workflow.newLocalActivityStub(ShipmentActivity.class, options.localActivity());
+        }
+        routeActivity = localActivity != null
+                ? localActivity : Workflow.newLocalActivityStub(ShipmentActivity.class, options.localActivity());
+        if (settings.isAuditProjection()) {
+            auditProjectionActivity = Workflow.newLocalActivityStub(AuditProjectionActivity.class,
+                    options.auditProjection());
+        }
+    }
+
+    /**
+     * Checked once per hop attempt, i.e. only between completed activities and timers, so the
+     * next run always starts from a settled position.
+     */
+    private boolean isHistoryBudgetSpent() {
+        WorkflowInfo info = Workflow.getInfo();
+        int budget = settings.getContinueAsNewAfterEvents();
+        return (budget > 0 && info.getHistoryLength() >= budget) || info.isContinueAsNewSuggested();
+    }
+
+    private String continueAsNew(String shipmentHandle) {
+        log.info("Shipment {} continuing as new at idx {} after {} history events",
+                shipmentHandle, currentIndex, Workflow.getInfo().getHistoryLength());
+        // Pending awaitStart updates answer with the progress so far instead of being dropped
+        continuingAsNew = true;
+        Workflow.await(Workflow::isEveryHandlerFinished);
+        ShipmentCheckpoint checkpoint = ShipmentCheckpoint.builder()
+                .route(route.toSnapshot())
+                .shipmentId(shipmentId)
+                .currentIndex(currentIndex)
+                .retryCycle(retryCycle)
+                .auditLog(auditLog)
+                .run(run + 1)
+                .startedAt(startedAt)
+                .reservedWaypoints(new ArrayList<>(reservedWaypoints))
+                .auditPublished(auditPublished)
+                .compensations(compensations)
+                .build();
+        Workflow.getMetricsScope().counter("shipment.continued.as.new").inc(1);
+        ContinueAsNewOptions.Builder options = ContinueAsNewOptions.newBuilder()
+                .setMemo(Map.of(SETTINGS_MEMO_KEY, settings));
+        if (settings.isSearchAttributes()) {
+            // Keeps the shipment listed as it is while the next run starts
+            options.setTypedSearchAttributes(Workflow.getTypedSearchAttributes());
+        }
+        ShipmentWorkflow next = Workflow.newContinueAsNewStub(ShipmentWorkflow.class, options.build());
+        return next.executeShipment(shipmentHandle, checkpoint);
+    }
+
+    /**
+     * Queues for a slot at the waypoint and blocks until its WaypointWorkflow grants it.
+     * No-op without waypoint reservations or when the slot is already held.
+     */
+    private void reserve(String waypoint) {
+        if (!settings.isWaypointReservations() || reservedWaypoints.contains(waypoint)) {
+            return;
+        }
+        status = ShipmentStatus.WAITING_FOR_SLOT;
+        indexProgress();
+        long waitStarted = Workflow.currentTimeMillis();
+        requestedWaypoint = waypoint;
+        waypointActivity.requestSlot(waypoint, Workflow.getInfo().getWorkflowId());
+        Workflow.await(() -> reservedWaypoints.contains(waypoint));
+        requestedWaypoint = null;
+        Workflow.getMetricsScope().timer("shipment.slot.wait")
+                .record(com.uber.m3.util.Duration.ofMillis(Workflow.currentTimeMillis() - waitStarted));
+        status = ShipmentStatus.IN_TRANSIT;
+    }
+
+    /**
+     * Starts an occupancy lookup of the waypoint at {@code index} without waiting for it. It
+     * runs alongside the current move and is consumed by awaitWaypoint before the move into
+     * that waypoint.
+     */
+    private void lookAhead(int index) {
+        if (!isLookaheadOn() || index >= route.size()) {
+            lookahead = null;
+            return;
+        }
+        lookaheadIndex = index;
+        lookahead = Async.function(lookaheadActivity::getOccupancy, route.get(index));
+    }
+
+    /**
+     * Holds the move into the waypoint at {@code index} while the lookahead saw it occupied by
+     * another shipment, polling until it clears or the maximum wait is up. A failed lookup
+     * counts as unknown and lets the move go ahead.
+     */
+    private void awaitWaypoint(int index) {
+        if (lookahead == null || lookaheadIndex != index) {
+            return;
+        }
+        String city = route.get(index);
+        WaypointOccupancy occupancy = occupancyOrNull(lookahead);
+        lookahead = null;
+        if (occupancy == null || occupancy.isAvailableFor(shipmentId)) {
+            return;
+        }
+        log.info("{} is occupied by shipment {}, waiting before moving in", city, occupancy.getOccupiedByShipmentId());
+        status = ShipmentStatus.WAITING_FOR_SLOT;
+        indexProgress();
+        long waitStarted = Workflow.currentTimeMillis();
+        long deadline = waitStarted + settings.getLookaheadMaxWait().toMillis();
+        while (occupancy != null && !occupancy.isAvailableFor(shipmentId) && Workflow.currentTimeMillis() < deadline) {
+            Workflow.sleep(settings.getLookaheadPollInterval());
+            occupancy = occupancyOrNull(Async.function(lookaheadActivity::getOccupancy, city));
+        }
+        Workflow.getMetricsScope().timer("shipment.slot.wait")
+                .record(com.uber.m3.util.Duration.ofMillis(Workflow.currentTimeMillis() - waitStarted));
+        status = ShipmentStatus.IN_TRANSIT;
+    }
+
+    /**
+     * Route index the next move goes to: the next waypoint, or further along when moves may
+     * span several hops per activity.
+     */
+    private int hopRunEnd() {
+        if (!isHopRunOn()) {
+            return currentIndex + 1;
+        }
+        return Math.min(route.size() - 1, currentIndex + settings.getMaxHopsPerActivity());
+    }
+
+    /**
+     * Books the hops from the current index up to {@code reached} as moved.
+     */
+    private void advanceTo(int reached) {
+        while (currentIndex < reached) {
+            auditLog.moved(currentIndex, currentIndex + 1, now());
+            if (currentIndex + 1 == route.size() - 1) {
+                auditLog.completed(0, currentIndex + 1, now());
+            }
+            currentIndex++;
+        }
+        retryCycle = 0;
+    }
+
+    /**
+     * Route index a failed moveAlong got to: the last failure detail when a hop failed, the
+     * last heartbeat when the attempt timed out. Anything else counts as no progress.
+     */
+    private int reachedIndex(ActivityFailure e) {
+        Values details = null;
+        if (e.getCause() instanceof ApplicationFailure cause) {
+            details = cause.getDetails();
+        } else if (e.getCause() instanceof TimeoutFailure timeout) {
+            details = timeout.getLastHeartbeatDetails();
+        }
+        if (details == null || details.getSize() == 0) {
+            return currentIndex;
+        }
+        Integer reached = details.get(details.getSize() - 1, Integer.class);
+        return reached == null ? currentIndex : Math.max(currentIndex, reached);
+    }
+
+    private boolean isHopRunOn() {
+        return settings.getMaxHopsPerActivity() > 1 && !settings.isWaypointReservations()
+                && !isLookaheadOn() && !settings.isLocalActivities();
+    }
+
+    private boolean isLookaheadOn() {
+        return settings.isNextHopLookahead() && !settings.isWaypointReservations();
+    }
+
+    private static WaypointOccupancy occupancyOrNull(Promise<WaypointOccupancy> occupancy) {
+        try {
+            return occupancy.get();
+        } catch (ActivityFailure e) {
+            log.warn("Occupancy lookup failed ({}), not waiting on it", failureReason(e));
+            return null;
+        }
+    }
+
+    private void release(String waypoint) {
+        if (reservedWaypoints.remove(waypoint)) {
+            sendRelease(waypoint);
+        }
+    }
+
+    /**
+     * Gives back every slot held, and the place in line for the one being waited for. A
+     * waypoint that cannot be signalled is skipped so the others are still released.
+     */
+    private void releaseAll() {
+        Set<String> waypoints = new LinkedHashSet<>(reservedWaypoints);
+        if (requestedWaypoint != null) {
+            waypoints.add(requestedWaypoint);
+        }
+        reservedWaypoints.clear();
+        requestedWaypoint = null;
+        for (String waypoint : waypoints) {
+            try {
+                sendRelease(waypoint);
+            } catch (SignalExternalWorkflowException | ApplicationFailure e) {
+                if (!ExternalSignals.isTargetGone(e)) {
+                    throw e;
+                }
+                log.warn("Could not release {}: {}", waypoint, e.getMessage());
+            }
+        }
+    }
+
+    private static void sendRelease(String waypoint) {
+        Workflow.newExternalWorkflowStub(WaypointWorkflow.class, WaypointWorkflow.workflowId(waypoint))
+                .releaseSlot(Workflow.getInfo().getWorkflowId());
+    }
+
+    /**
+     * Completes when the milestone is reached, or with the progress so far when this run
+     * continues as new first, since the update would not carry over to the next run.
+     */
+    @Override
+    public ShipmentStarted awaitStart(StartMilestone milestone) {
+        Workflow.await(() -> isReached(milestone) || continuingAsNew);
+        return ShipmentStarted.builder()
+                .shipmentId(shipmentId)
+                .route(route)
+                .routeVersion(route.version())
+                .status(status)
+                .currentIndex(currentIndex)
+                .currentCity(route.get(currentIndex))
+                .milestonePending(!isReached(milestone))
+                .build();
+    }
+
+    private boolean isReached(StartMilestone milestone) {
+        return shipmentId != null
+                && (milestone == StartMilestone.CREATED || currentIndex > 0 || status == ShipmentStatus.DELIVERED);
+    }
+
+    @Override
+    public void slotGranted(String waypoint) {
+        reservedWaypoints.add(waypoint);
+    }
+
+    @Override
+    public void slotCheck(String waypoint) {
+        // Delivery alone tells the waypoint the shipment is still running
+    }
+
+    /**
+     * Sends the audit events appended since the last publish to the read-side projection.
+     * Best effort: after a failed publish the same events go out again with the next one.
+     */
+    private void publishAudit() {
+        long appended = auditLog.appendedCount();
+        if (auditProjectionActivity == null || appended == auditPublished) {
             return;
         }
-        String from = route.get(currentIndex);
-        String to = route.get(currentIndex - 1);
+        List<AuditEvent> events = auditLog.latest((int) Math.min(Integer.MAX_VALUE, appended - auditPublished), route);
+        try {
+            auditProjectionActivity.publish(Workflow.getInfo().getWorkflowId(), appended - events.size(), events);
+            auditPublished = appended;
+        } catch (ActivityFailure e) {
+            log.warn("Could not publish audit events ({}), retrying with the next publish", failureReason(e));
+        }
+    }
+
+    /**
+     * Upserts the shipment search attributes, skipped when nothing changed since the last upsert
+     * since each one adds a command to the history. Waits that end back in transit are picked up
+     * by the next hop.
+     */
+    private void indexProgress() {
+        if (!settings.isSearchAttributes()) {
+            return;
+        }
+        String city = route.get(currentIndex);
+        List<Object> values = List.of(status, currentIndex, city, retryCycle, compensations);
+        if (values.equals(indexed)) {
+            return;
+        }
+        indexed = values;
+        Workflow.upsertTypedSearchAttributes(
+                ShipmentSearchAttributes.STATUS.valueSet(status.name()),
+                ShipmentSearchAttributes.HOP_INDEX.valueSet((long) currentIndex),
+                ShipmentSearchAttributes.CITY.valueSet(city),
+                ShipmentSearchAttributes.RETRY_CYCLE.valueSet((long) retryCycle),
+                ShipmentSearchAttributes.COMPENSATIONS.valueSet((long) compensations));
+    }
+
+    private void backOff(long seconds) {
+        publishAudit();
+        status = ShipmentStatus.BACKING_OFF;
+        indexProgress();
+        Workflow.getMetricsScope().timer("shipment.backoff")
+                .record(com.uber.m3.util.Duration.ofSeconds(seconds));
+        Workflow.sleep(Duration.ofSeconds(seconds));
+        status = ShipmentStatus.IN_TRANSIT;
+    }
+
+    /**
+     * Hop latency as the workflow sees it: from scheduling the move until it succeeded or was
+     * given up on, including activity retries. Moves spanning several hops are recorded
+     * separately, under {@code shipment.hop.run.latency}. The metrics scope drops samples during replay.
+     */
+    private void recordHop(String timer, String outcome, long hopStarted) {
+        Workflow.getMetricsScope().tagged(Map.of("outcome", outcome)).timer(timer)
+                .record(com.uber.m3.util.Duration.ofMillis(Workflow.currentTimeMillis() - hopStarted));
+    }
+
+    /**
+     * A hop is given up on once its retries ran out or the downstream rejected it outright
+     * (non-retryable 4xx); both cases go through compensation and backoff.
+     */
+    private static boolean isHopExhausted(ActivityFailure e) {
+        return e.getRetryState() == RetryState.RETRY_STATE_MAXIMUM_ATTEMPTS_REACHED
+                || e.getRetryState() == RetryState.RETRY_STATE_NON_RETRYABLE_FAILURE;
+    }
+
+    private void registerCompensation(Saga saga) {
+        int hop = currentIndex;
+        if (hop == 0) {
+            return;
+        }
+        String from = route.get(hop);
+        String to = route.get(hop - 1);
         saga.addCompensation(
                 () -> {
                     compensationActivity.compensateMove(shipmentId, from, to);
-                    auditTrail.add(AuditEvent.compensated(from, to, "Compensated last move"));
+                    auditLog.compensated(hop, hop - 1, "Compensated last move", now());
                 }
         );
     }
+
+    /**
+     * Uses the root failure message rather than the ActivityFailure one, which embeds event
+     * ids and would make every reason unique.
+     */
+    private static String failureReason(ActivityFailure e) {
+        if (e.getCause() instanceof ApplicationFailure cause) {
+            return cause.getOriginalMessage();
+        }
+        return e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+    }
+
+    /**
+     * Audit timestamps come from workflow time, so a replay renders the same trail as the
+     * original run.
+     */
+    private static long now() {
+        return Workflow.currentTimeMillis();
+    }
     
     @Override
     public List<AuditEvent> getAuditTrail() {
-        return auditTrail;
+        return auditLog.toEvents(route);
+    }
+
+    @Override
+    public ShipmentProgress getProgress() {
+        return ShipmentProgress.builder()
+                .status(status)
+                .shipmentId(shipmentId)
+                .currentIndex(currentIndex)
+                .currentCity(route.isEmpty() ? null : route.get(currentIndex))
+                .retryCycle(retryCycle)
+                .compensations(compensations)
+                .routeVersion(route.version())
+                .build();
     }
 }
\ No newline at end of file
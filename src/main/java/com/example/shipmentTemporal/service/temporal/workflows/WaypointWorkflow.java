@@ -0,0 +1,38 @@
+package com.example.shipmentTemporal.service.temporal.workflows;
+
+import com.example.shipmentTemporal.models.WaypointState;
+import io.temporal.workflow.QueryMethod;
+import io.temporal.workflow.SignalMethod;
+import io.temporal.workflow.WorkflowInterface;
+import io.temporal.workflow.WorkflowMethod;
+
+/**
+ * Long-lived entity workflow, one per waypoint, that hands out the waypoint's slots to
+ * shipment workflows in request order. A granted shipment is told through its
+ * {@link ShipmentWorkflow#SLOT_GRANTED_SIGNAL} signal and keeps the slot until it releases it.
+ */
+@WorkflowInterface
+public interface WaypointWorkflow {
+
+    static String workflowId(String waypoint) {
+        return "waypoint-" + waypoint;
+    }
+
+    /**
+     * Runs until the history budget is spent, then continues as new with its current state.
+     */
+    @WorkflowMethod
+    void run(WaypointState state);
+
+    @SignalMethod
+    void requestSlot(String shipmentWorkflowId);
+
+    /**
+     * Frees the shipment's slot, or drops it from the queue if it was still waiting.
+     */
+    @SignalMethod
+    void releaseSlot(String shipmentWorkflowId);
+
+    @QueryMethod
+    WaypointState getState();
+}
@@ -0,0 +1,158 @@
+package com.example.shipmentTemporal.service.temporal.workflows;
+
+import com.example.shipmentTemporal.models.WaypointState;
+import io.temporal.failure.ApplicationFailure;
+import io.temporal.spring.boot.WorkflowImpl;
+import io.temporal.workflow.SignalExternalWorkflowException;
+import io.temporal.workflow.Workflow;
+import io.temporal.workflow.WorkflowInfo;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+@WorkflowImpl(taskQueues = "${shipment.task-queues.workflow:shipment-workflow-queue}")
+@Slf4j
+public class WaypointWorkflowImpl implements WaypointWorkflow {
+
+    private static final Duration DEFAULT_HOLDER_CHECK_INTERVAL = Duration.ofMinutes(1);
+
+    // Signal handlers may run before run() has restored the state, so they only touch these
+    private final Set<String> holders = new LinkedHashSet<>();
+    private final Deque<String> queue = new ArrayDeque<>();
+    private String waypoint;
+    private int capacity = 1;
+    private int continueAsNewAfterEvents;
+    private Duration holderCheckInterval;
+
+    @Override
+    public void run(WaypointState state) {
+        waypoint = state.getWaypoint();
+        capacity = Math.max(1, state.getCapacity());
+        continueAsNewAfterEvents = state.getContinueAsNewAfterEvents();
+        holderCheckInterval = state.getHolderCheckInterval();
+        holders.addAll(state.getHolders());
+        // Carried-over waiters go ahead of anyone who signalled this run before it started
+        for (int i = state.getQueue().size() - 1; i >= 0; i--) {
+            String shipment = state.getQueue().get(i);
+            if (!holders.contains(shipment) && !queue.contains(shipment)) {
+                queue.addFirst(shipment);
+            }
+        }
+
+        while (true) {
+            if (isHolderCheckOn() && isFull()) {
+                if (!Workflow.await(holderCheckInterval, () -> canGrant() || isHistoryBudgetSpent())) {
+                    dropEndedHolders();
+                    continue;
+                }
+            } else {
+                Workflow.await(() -> canGrant() || isHistoryBudgetSpent() || (isHolderCheckOn() && isFull()));
+            }
+            if (canGrant()) {
+                grantNext();
+                continue;
+            }
+            if (!isHistoryBudgetSpent()) {
+                continue;
+            }
+            log.info("Waypoint {} continuing as new with {} holders and {} queued after {} history events",
+                    waypoint, holders.size(), queue.size(), Workflow.getInfo().getHistoryLength());
+            WaypointState next = getState();
+            if (next.getHolderCheckInterval() == null) {
+                // Runs started before holder checks existed get them from the next run on
+                next.setHolderCheckInterval(DEFAULT_HOLDER_CHECK_INTERVAL);
+            }
+            Workflow.newContinueAsNewStub(WaypointWorkflow.class).run(next);
+            return;
+        }
+    }
+
+    @Override
+    public void requestSlot(String shipmentWorkflowId) {
+        // Repeated requests come from activity retries; the first one already holds the place
+        if (!holders.contains(shipmentWorkflowId) && !queue.contains(shipmentWorkflowId)) {
+            queue.addLast(shipmentWorkflowId);
+        }
+    }
+
+    @Override
+    public void releaseSlot(String shipmentWorkflowId) {
+        if (!holders.remove(shipmentWorkflowId)) {
+            queue.remove(shipmentWorkflowId);
+        }
+    }
+
+    @Override
+    public WaypointState getState() {
+        return WaypointState.builder()
+                .waypoint(waypoint)
+                .capacity(capacity)
+                .continueAsNewAfterEvents(continueAsNewAfterEvents)
+                .holderCheckInterval(holderCheckInterval)
+                .holders(new ArrayList<>(holders))
+                .queue(new ArrayList<>(queue))
+                .build();
+    }
+
+    private boolean canGrant() {
+        return !queue.isEmpty() && holders.size() < capacity;
+    }
+
+    /**
+     * The slot counts as taken from the moment the grant is sent. If the shipment can no
+     * longer be signalled (it completed or was terminated) the slot goes back to the pool.
+     */
+    private void grantNext() {
+        String shipment = queue.pollFirst();
+        holders.add(shipment);
+        try {
+            Workflow.newUntypedExternalWorkflowStub(shipment).signal(ShipmentWorkflow.SLOT_GRANTED_SIGNAL, waypoint);
+        } catch (SignalExternalWorkflowException | ApplicationFailure e) {
+            if (!ExternalSignals.isTargetGone(e)) {
+                throw e;
+            }
+            log.warn("Could not grant {} to {}, freeing the slot: {}", waypoint, shipment, e.getMessage());
+            holders.remove(shipment);
+        }
+    }
+
+    /**
+     * Shipments queue while every slot is held.
+     */
+    private boolean isFull() {
+        return !queue.isEmpty() && holders.size() >= capacity;
+    }
+
+    private boolean isHolderCheckOn() {
+        return holderCheckInterval != null && !holderCheckInterval.isNegative() && !holderCheckInterval.isZero();
+    }
+
+    /**
+     * A shipment that was terminated or timed out never releases its slot. Holders that can
+     * no longer be signalled have ended, so their slots go back to the pool.
+     */
+    private void dropEndedHolders() {
+        for (String shipment : new ArrayList<>(holders)) {
+            try {
+                Workflow.newUntypedExternalWorkflowStub(shipment).signal(ShipmentWorkflow.SLOT_CHECK_SIGNAL, waypoint);
+            } catch (SignalExternalWorkflowException | ApplicationFailure e) {
+                if (!ExternalSignals.isTargetGone(e)) {
+                    throw e;
+                }
+                log.warn("{} ended while holding {}, freeing the slot: {}", shipment, waypoint, e.getMessage());
+                holders.remove(shipment);
+            }
+        }
+    }
+
+    private boolean isHistoryBudgetSpent() {
+        WorkflowInfo info = Workflow.getInfo();
+        return (continueAsNewAfterEvents > 0 && info.getHistoryLength() >= continueAsNewAfterEvents)
+                || info.isContinueAsNewSuggested();
+    }
+}
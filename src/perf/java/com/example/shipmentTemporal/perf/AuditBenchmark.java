@@ -0,0 +1,89 @@
+package com.example.shipmentTemporal.perf;
+
+import com.example.shipmentTemporal.models.AuditEvent;
+import com.example.shipmentTemporal.models.AuditLog;
+import com.example.shipmentTemporal.models.AuditTrailResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building audit events and of serializing the audit-trail response the way the
+ * controller does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuditBenchmark {
+
+    private static final Instant TIMESTAMP = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Param({"10", "200"})
+    public int events;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private List<String> route;
+    private AuditLog auditLog;
+    private AuditTrailResponse response;
+
+    @Setup
+    public void setUp() {
+        route = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            route.add("City-" + i);
+        }
+        auditLog = new AuditLog("BENCH-001", 0);
+        auditLog.created(TIMESTAMP.toEpochMilli());
+        for (int i = 1; i < events; i++) {
+            int hop = i % (route.size() - 1);
+            if (i % 3 == 0) {
+                auditLog.failed(hop, hop + 1, "Failed to move shipment: 503 Service Unavailable", TIMESTAMP.toEpochMilli() + i);
+            } else {
+                auditLog.moved(hop, hop + 1, TIMESTAMP.toEpochMilli() + i);
+            }
+        }
+        response = AuditTrailResponse.builder()
+                .success(true)
+                .message("Audit trail retrieved")
+                .workflowId("shipment-BENCH-001")
+                .auditTrail(auditLog.toEvents(route))
+                .build();
+    }
+
+    @Benchmark
+    public AuditEvent movedEvent() {
+        return AuditEvent.moved("Mumbai", "Delhi", TIMESTAMP);
+    }
+
+    @Benchmark
+    public AuditEvent failedEvent() {
+        return AuditEvent.failed("Mumbai", "Delhi", "Failed to move shipment: 503 Service Unavailable", TIMESTAMP);
+    }
+
+    @Benchmark
+    public List<AuditEvent> renderAuditLog() {
+        return auditLog.toEvents(route);
+    }
+
+    @Benchmark
+    public byte[] serializeAuditTrailResponse() {
+        return jsonMapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.shipmentTemporal.perf;
+
+import com.example.shipmentTemporal.models.RouteSnapshot;
+import com.example.shipmentTemporal.service.temporal.activities.ShipmentActivity;
+import com.example.shipmentTemporal.service.temporal.activities.ShipmentCompensationActivity;
+import com.example.shipmentTemporal.service.temporal.workflows.ShipmentWorkflow;
+import com.example.shipmentTemporal.service.temporal.workflows.ShipmentWorkflowImpl;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.common.WorkflowExecutionHistory;
+import io.temporal.failure.ApplicationFailure;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.testing.WorkflowReplayer;
+import io.temporal.worker.Worker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Replay cost of ShipmentWorkflowImpl histories of increasing length. Replay is what a worker
+ * pays whenever an execution falls out of the sticky cache, so it grows with route length and
+ * with every compensation cycle a shipment goes through.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplayBenchmark {
+
+    @Param({"5", "25", "100"})
+    public int waypoints;
+
+    @Param({"0", "10"})
+    public int compensationCycles;
+
+    private WorkflowExecutionHistory history;
+    private int historyLength;
+
+    @Setup
+    public void recordHistory() {
+        List<String> route = new ArrayList<>();
+        for (int i = 0; i < waypoints; i++) {
+            route.add("City-" + i);
+        }
+        try (TestWorkflowEnvironment testEnv = TestWorkflowEnvironment.newInstance()) {
+            ScriptedActivity activity = new ScriptedActivity(route, compensationCycles);
+            Worker workflowWorker = testEnv.newWorker("shipment-workflow-queue");
+            workflowWorker.registerWorkflowImplementationTypes(ShipmentWorkflowImpl.class);
+            // getRoute runs as a local activity on the workflow worker
+            workflowWorker.registerActivitiesImplementations(activity);
+            Worker activityWorker = testEnv.newWorker("shipment-activity-queue");
+            activityWorker.registerActivitiesImplementations(activity, new NoopCompensation());
+            testEnv.start();
+
+            String workflowId = "replay-" + waypoints + "-" + compensationCycles;
+            ShipmentWorkflow workflow = testEnv.getWorkflowClient().newWorkflowStub(ShipmentWorkflow.class,
+                    WorkflowOptions.newBuilder()
+                            .setWorkflowId(workflowId)
+                            .setTaskQueue("shipment-workflow-queue")
+                            .build());
+            workflow.executeShipment("REPLAY-001", null);
+            history = testEnv.getWorkflowClient().fetchHistory(workflowId);
+            historyLength = history.getEvents().size();
+        }
+        System.out.printf("%n%d waypoints, %d compensation cycles: %d history events%n",
+                waypoints, compensationCycles, historyLength);
+    }
+
+    @Benchmark
+    public WorkflowExecutionHistory replay() throws Exception {
+        WorkflowReplayer.replayWorkflowExecution(history, ShipmentWorkflowImpl.class);
+        return history;
+    }
+
+    /**
+     * Succeeds on every hop except the second, which is rejected {@code failures} times so the
+     * workflow compensates back to the origin and retries.
+     */
+    static class ScriptedActivity implements ShipmentActivity {
+        private final RouteSnapshot route;
+        private final AtomicInteger remainingFailures;
+
+        ScriptedActivity(List<String> route, int failures) {
+            this.route = RouteSnapshot.of(route);
+            this.remainingFailures = new AtomicInteger(failures);
+        }
+
+        @Override
+        public RouteSnapshot getRoute() {
+            return route;
+        }
+
+        @Override
+        public Integer createShipment(String handle) {
+            return 1;
+        }
+
+        @Override
+        public void moveShipment(Integer shipmentId, String from, String to) {
+            if (from.equals(route.getCities().get(1)) && remainingFailures.getAndDecrement() > 0) {
+                throw ApplicationFailure.newNonRetryableFailure("Move rejected", "DownstreamRejected");
+            }
+        }
+
+        @Override
+        public int moveAlong(Integer shipmentId, List<String> route, int fromIndex, int toIndex) {
+            for (int i = fromIndex; i < toIndex; i++) {
+                moveShipment(shipmentId, route.get(i), route.get(i + 1));
+            }
+            return toIndex;
+        }
+    }
+
+    static class NoopCompensation implements ShipmentCompensationActivity {
+        @Override
+        public void compensateMove(Integer shipmentId, String from, String to) {
+        }
+    }
+}
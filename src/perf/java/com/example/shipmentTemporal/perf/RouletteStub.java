@@ -0,0 +1,318 @@
+package com.example.shipmentTemporal.perf;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-in for the roulette service (downstream/roulette.py) on an ephemeral port.
+ * It serves GET /route, GET /waypoints/city/{city}, POST /shipments, GET /shipments/{id} and
+ * POST /move with the same status codes:
+ * <ul>
+ *     <li>chaos 503s with a Retry-After header on mutating calls;</li>
+ *     <li>422 for non-adjacent moves;</li>
+ *     <li>409 when the shipment is not at {@code from} or when the destination is at capacity.</li>
+ * </ul>
+ * Every request is delayed by a log-normally distributed latency.
+ */
+public class RouletteStub implements AutoCloseable {
+
+    private static final Pattern SHIPMENT_ID = Pattern.compile("\"shipment_id\"\\s*:\\s*(\\d+)");
+    private static final Pattern FROM = Pattern.compile("\"from\"\\s*:\\s*\"([^\"]*)\"");
+    private static final Pattern TO = Pattern.compile("\"to\"\\s*:\\s*\"([^\"]*)\"");
+    private static final double Z_99 = 2.326;
+
+    /**
+     * Stub behaviour. A capacity of zero or less leaves waypoints unbounded; the real service
+     * allows one shipment per waypoint.
+     */
+    @Getter
+    @Builder
+    public static class Behaviour {
+        @Builder.Default
+        private final double failureRate = 0.0;
+        @Builder.Default
+        private final int retryAfterMinSeconds = 1;
+        @Builder.Default
+        private final int retryAfterMaxSeconds = 3;
+        @Builder.Default
+        private final Duration latencyMedian = Duration.ZERO;
+        @Builder.Default
+        private final Duration latencyP99 = Duration.ZERO;
+        @Builder.Default
+        private final int waypointCapacity = 0;
+        @Builder.Default
+        private final int threads = 64;
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Behaviour behaviour;
+    private final List<String> route;
+    private final byte[] routeBody;
+    private final AtomicInteger[] occupancy;
+    private final Map<Integer, Integer> positions = new ConcurrentHashMap<>();
+    private final AtomicInteger nextShipmentId = new AtomicInteger(1);
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger chaosFailures = new AtomicInteger();
+    private final AtomicInteger conflicts = new AtomicInteger();
+
+    public RouletteStub(List<String> route) throws IOException {
+        this(route, Behaviour.builder().build());
+    }
+
+    public RouletteStub(List<String> route, Behaviour behaviour) throws IOException {
+        this.route = List.copyOf(route);
+        this.behaviour = behaviour;
+        this.routeBody = routeJson(route).getBytes(StandardCharsets.UTF_8);
+        this.occupancy = new AtomicInteger[route.size()];
+        for (int i = 0; i < occupancy.length; i++) {
+            occupancy[i] = new AtomicInteger();
+        }
+        this.executor = Executors.newFixedThreadPool(behaviour.getThreads());
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/route", exchange -> handle(exchange, false, this::route));
+        server.createContext("/waypoints/city/", exchange -> handle(exchange, false, this::waypoint));
+        server.createContext("/shipments", exchange -> {
+            if ("GET".equals(exchange.getRequestMethod())) {
+                handle(exchange, false, this::shipment);
+            } else {
+                handle(exchange, true, this::createShipment);
+            }
+        });
+        server.createContext("/move", exchange -> handle(exchange, true, this::move));
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public int requests() {
+        return requests.get();
+    }
+
+    public int chaosFailures() {
+        return chaosFailures.get();
+    }
+
+    public int conflicts() {
+        return conflicts.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private interface Handler {
+        void handle(HttpExchange exchange, String body) throws IOException;
+    }
+
+    private void handle(HttpExchange exchange, boolean mutating, Handler handler) throws IOException {
+        requests.incrementAndGet();
+        String body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        sleepLatency();
+        if (mutating && ThreadLocalRandom.current().nextDouble() < behaviour.getFailureRate()) {
+            chaosFailures.incrementAndGet();
+            int retryAfter = ThreadLocalRandom.current()
+                    .nextInt(behaviour.getRetryAfterMinSeconds(), behaviour.getRetryAfterMaxSeconds() + 1);
+            exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfter));
+            error(exchange, 503, "Simulated transient failure. Please retry.");
+            return;
+        }
+        handler.handle(exchange, body);
+    }
+
+    private void route(HttpExchange exchange, String body) throws IOException {
+        respond(exchange, 200, routeBody);
+    }
+
+    /**
+     * Reports the lowest-numbered shipment at the waypoint as its occupant, which is exact for
+     * a capacity of one. Delivered shipments no longer occupy the last waypoint.
+     */
+    private void waypoint(HttpExchange exchange, String body) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        int idx = route.indexOf(path.substring(path.lastIndexOf('/') + 1));
+        if (idx < 0) {
+            error(exchange, 404, "not found");
+            return;
+        }
+        Integer occupant = null;
+        if (idx < route.size() - 1) {
+            occupant = positions.entrySet().stream()
+                    .filter(position -> position.getValue() == idx)
+                    .map(Map.Entry::getKey)
+                    .min(Integer::compare)
+                    .orElse(null);
+        }
+        respond(exchange, 200, ("{\"success\":true,\"waypoint\":{\"id\":" + (idx + 1) + ",\"idx\":" + idx
+                + ",\"city\":\"" + route.get(idx) + "\",\"capacity\":" + Math.max(1, behaviour.getWaypointCapacity())
+                + ",\"occupied_by_shipment_id\":" + occupant + "}}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void createShipment(HttpExchange exchange, String body) throws IOException {
+        if (!tryOccupy(0)) {
+            conflict(exchange, "origin occupied");
+            return;
+        }
+        int id = nextShipmentId.getAndIncrement();
+        positions.put(id, 0);
+        respond(exchange, 201, ("{\"success\":true,\"shipment\":{\"id\":" + id
+                + ",\"status\":\"IN_TRANSIT\",\"current_idx\":0}}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void shipment(HttpExchange exchange, String body) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        Integer position = null;
+        try {
+            position = positions.get(Integer.valueOf(path.substring(path.lastIndexOf('/') + 1)));
+        } catch (NumberFormatException e) {
+            // Falls through to 404 like an unknown ID
+        }
+        if (position == null) {
+            error(exchange, 404, "shipment not found");
+            return;
+        }
+        String status = position == route.size() - 1 ? "DELIVERED" : "IN_TRANSIT";
+        respond(exchange, 200, ("{\"success\":true,\"shipment\":{\"id\":" + path.substring(path.lastIndexOf('/') + 1)
+                + ",\"status\":\"" + status + "\",\"current_idx\":" + position + "}}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void move(HttpExchange exchange, String body) throws IOException {
+        Integer shipmentId = Integer.valueOf(field(SHIPMENT_ID, body));
+        int fromIdx = route.indexOf(field(FROM, body));
+        int toIdx = route.indexOf(field(TO, body));
+        if (fromIdx < 0 || toIdx < 0) {
+            error(exchange, 400, "invalid from/to");
+            return;
+        }
+        if (Math.abs(toIdx - fromIdx) != 1) {
+            error(exchange, 422, "non-adjacent move not allowed");
+            return;
+        }
+        String rejection = applyMove(shipmentId, fromIdx, toIdx);
+        if (rejection != null) {
+            if (rejection.startsWith("not found")) {
+                error(exchange, 404, "shipment or waypoints not found");
+            } else {
+                conflict(exchange, rejection);
+            }
+            return;
+        }
+        respond(exchange, 200, ("{\"success\":true,\"shipment\":{\"id\":" + shipmentId
+                + ",\"current_idx\":" + toIdx + "}}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns null when the move was applied, otherwise the reason it was rejected.
+     */
+    private synchronized String applyMove(Integer shipmentId, int fromIdx, int toIdx) {
+        Integer current = positions.get(shipmentId);
+        if (current == null) {
+            return "not found";
+        }
+        if (current != fromIdx) {
+            return "shipment not at 'from'";
+        }
+        if (!tryOccupy(toIdx)) {
+            return "destination occupied";
+        }
+        occupancy[fromIdx].decrementAndGet();
+        positions.put(shipmentId, toIdx);
+        if (toIdx == route.size() - 1) {
+            occupancy[toIdx].decrementAndGet();
+        }
+        return null;
+    }
+
+    private boolean tryOccupy(int idx) {
+        int capacity = behaviour.getWaypointCapacity();
+        if (capacity <= 0) {
+            occupancy[idx].incrementAndGet();
+            return true;
+        }
+        while (true) {
+            int occupied = occupancy[idx].get();
+            if (occupied >= capacity) {
+                return false;
+            }
+            if (occupancy[idx].compareAndSet(occupied, occupied + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void sleepLatency() {
+        long medianNanos = behaviour.getLatencyMedian().toNanos();
+        if (medianNanos <= 0) {
+            return;
+        }
+        long p99Nanos = Math.max(medianNanos, behaviour.getLatencyP99().toNanos());
+        double sigma = Math.log((double) p99Nanos / medianNanos) / Z_99;
+        long delay = (long) (medianNanos * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+        try {
+            TimeUnit.NANOSECONDS.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void conflict(HttpExchange exchange, String message) throws IOException {
+        conflicts.incrementAndGet();
+        error(exchange, 409, message);
+    }
+
+    private static String field(Pattern pattern, String body) {
+        Matcher matcher = pattern.matcher(body);
+        return matcher.find() ? matcher.group(1) : "";
+    }
+
+    private static void error(HttpExchange exchange, int status, String message) throws IOException {
+        respond(exchange, status, ("{\"success\":false,\"error\":\"" + message + "\"}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String routeJson(List<String> route) {
+        StringBuilder json = new StringBuilder("{\"count\":").append(route.size()).append(",\"order\":[");
+        for (int i = 0; i < route.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"idx\":").append(i).append(",\"city\":\"").append(route.get(i))
+                    .append("\",\"id\":").append(i + 1).append('}');
+        }
+        return json.append("]}").toString();
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.shipmentTemporal.perf;
+
+import com.example.shipmentTemporal.clients.ShipmentClient;
+import com.example.shipmentTemporal.configs.AppConfig;
+import com.example.shipmentTemporal.configs.RouletteHttpProperties;
+import com.example.shipmentTemporal.models.CreateShipmentRequest;
+import com.example.shipmentTemporal.models.MoveRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip of each ShipmentClient call through the production RestTemplate wiring
+ * (pooled keep-alive client, Jackson marshalling) against {@link RouletteStub}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class ShipmentClientBenchmark {
+
+    private RouletteStub stub;
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+    private ShipmentClient client;
+
+    private final CreateShipmentRequest createRequest = CreateShipmentRequest.builder()
+            .handle("BENCH-001").name("Shipment-BENCH-001").build();
+
+    @Setup
+    public void setUp() throws IOException {
+        stub = new RouletteStub(List.of("Mumbai", "Delhi", "Jaipur", "Bangalore"));
+        AppConfig config = new AppConfig();
+        RouletteHttpProperties properties = new RouletteHttpProperties();
+        connectionManager = config.rouletteConnectionManager(properties);
+        httpClient = config.rouletteHttpClient(connectionManager, properties);
+        client = new ShipmentClient();
+        ReflectionTestUtils.setField(client, "restTemplate", config.restTemplate(httpClient, properties));
+        ReflectionTestUtils.setField(client, "baseUrl", stub.baseUrl());
+        ReflectionTestUtils.setField(client, "meterRegistry", new SimpleMeterRegistry());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        httpClient.close();
+        connectionManager.close();
+        stub.close();
+    }
+
+    @Benchmark
+    public List<String> getRoute() {
+        return client.getRoute();
+    }
+
+    @Benchmark
+    public Integer createShipment() {
+        return client.createShipment(createRequest);
+    }
+
+    @Benchmark
+    public void moveShipment(ShuttlingShipment shipment) {
+        client.moveShipment(shipment.nextMove());
+    }
+
+    /**
+     * One shipment per benchmark thread, moved back and forth between the first two cities
+     * so the stub accepts every move.
+     */
+    @State(Scope.Thread)
+    public static class ShuttlingShipment {
+        private Integer shipmentId;
+        private boolean atOrigin = true;
+
+        @Setup
+        public void create(ShipmentClientBenchmark benchmark) {
+            shipmentId = benchmark.client.createShipment(CreateShipmentRequest.builder()
+                    .handle("BENCH-MOVE-" + Thread.currentThread().getId()).build());
+        }
+
+        MoveRequest nextMove() {
+            MoveRequest move = MoveRequest.builder()
+                    .shipmentId(shipmentId)
+                    .from(atOrigin ? "Mumbai" : "Delhi")
+                    .to(atOrigin ? "Delhi" : "Mumbai")
+                    .build();
+            atOrigin = !atOrigin;
+            return move;
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.example.shipmentTemporal.perf;
+
+import com.example.shipmentTemporal.clients.ReactiveShipmentClient;
+import com.example.shipmentTemporal.clients.RouteProvider;
+import com.example.shipmentTemporal.clients.ShipmentClient;
+import com.example.shipmentTemporal.configs.AppConfig;
+import com.example.shipmentTemporal.configs.RouletteHttpProperties;
+import com.example.shipmentTemporal.configs.TaskQueueProperties;
+import com.example.shipmentTemporal.models.ShipmentRequest;
+import com.example.shipmentTemporal.models.ShipmentResponse;
+import com.example.shipmentTemporal.models.ShipmentWorkflowSettings;
+import com.example.shipmentTemporal.service.ShipmentService;
+import com.example.shipmentTemporal.service.audit.InMemoryAuditProjectionStore;
+import com.example.shipmentTemporal.service.temporal.activities.ActivityMetrics;
+import com.example.shipmentTemporal.service.temporal.activities.ShipmentActivityImpl;
+import com.example.shipmentTemporal.service.temporal.activities.ShipmentCompensateActivityImpl;
+import com.example.shipmentTemporal.service.temporal.activities.WaypointActivityImpl;
+import com.example.shipmentTemporal.service.temporal.workflows.ShipmentWorkflowImpl;
+import com.example.shipmentTemporal.service.temporal.workflows.WaypointWorkflowImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.temporal.api.common.v1.Payloads;
+import io.temporal.api.enums.v1.EventType;
+import io.temporal.api.history.v1.ActivityTaskCompletedEventAttributes;
+import io.temporal.api.history.v1.ActivityTaskFailedEventAttributes;
+import io.temporal.api.history.v1.HistoryEvent;
+import io.temporal.api.history.v1.MarkerRecordedEventAttributes;
+import io.temporal.client.WorkflowClient;
+import io.temporal.common.WorkflowExecutionHistory;
+import io.temporal.common.converter.GlobalDataConverter;
+import io.temporal.testing.TestEnvironmentOptions;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.worker.Worker;
+import io.temporal.worker.WorkerFactoryOptions;
+import io.temporal.worker.WorkerOptions;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Drives N shipments end to end through ShipmentService, ShipmentWorkflowImpl,
+ * ShipmentActivityImpl and ShipmentClient. Temporal runs in a TestWorkflowEnvironment and the
+ * roulette service is replaced by {@link RouletteStub}. It reports throughput, the delivery
+ * time distribution and, per shipment, hops, compensations and backoff time. The per-shipment
+ * figures are read back from each workflow's history.
+ * <p>
+ * Parameters are system properties, all optional:
+ * <pre>
+ * load.shipments=200            load.waypoints=10            load.failureRate=0.3
+ * load.latencyMedianMs=5        load.latencyP99Ms=50         load.retryAfterMin=1
+ * load.retryAfterMax=3          load.waypointCapacity=0      load.activitySlots=200
+ * load.workflowSlots=200        load.localActivities=false   load.timeSkipping=true
+ * load.virtualThreads=false    load.waypointReservations=false   load.lookahead=false
+ * load.compensationQueue=true   load.compensationSlots=50    load.maxHopsPerActivity=1
+ * </pre>
+ * With time skipping on, workflow timers (backoff sleeps) complete as soon as nothing else is
+ * in flight. Delivery times are then measured on workflow time rather than wall-clock time,
+ * while throughput stays wall-clock.
+ * <p>
+ * {@code load.virtualThreads=true} (Java 21+) runs the worker executors, workflow threads and
+ * the workflow client executor on virtual threads. Together with the thread and heap figures
+ * in the report, comparing a run with and without it shows the cost of platform threads at a
+ * given slot count.
+ * <p>
+ * The report also gives the schedule-to-start time of moves and compensations. With
+ * {@code load.compensationQueue=false}, compensations share the activity queue and its slots;
+ * under a burst of starts they wait behind fresh moves, which their own queue avoids.
+ */
+public class ShipmentLoadHarness {
+
+    public static void main(String[] args) throws Exception {
+        int shipments = Integer.getInteger("load.shipments", 200);
+        int waypoints = Integer.getInteger("load.waypoints", 10);
+        boolean timeSkipping = Boolean.parseBoolean(System.getProperty("load.timeSkipping", "true"));
+        boolean virtualThreads = Boolean.getBoolean("load.virtualThreads");
+        RouletteStub.Behaviour behaviour = RouletteStub.Behaviour.builder()
+                .failureRate(Double.parseDouble(System.getProperty("load.failureRate", "0.3")))
+                .latencyMedian(Duration.ofMillis(Long.getLong("load.latencyMedianMs", 5)))
+                .latencyP99(Duration.ofMillis(Long.getLong("load.latencyP99Ms", 50)))
+                .retryAfterMinSeconds(Integer.getInteger("load.retryAfterMin", 1))
+                .retryAfterMaxSeconds(Integer.getInteger("load.retryAfterMax", 3))
+                .waypointCapacity(Integer.getInteger("load.waypointCapacity", 0))
+                .build();
+        WorkerOptions workerOptions = WorkerOptions.newBuilder()
+                .setMaxConcurrentActivityExecutionSize(Integer.getInteger("load.activitySlots", 200))
+                .setMaxConcurrentWorkflowTaskExecutionSize(Integer.getInteger("load.workflowSlots", 200))
+                .setMaxConcurrentLocalActivityExecutionSize(Integer.getInteger("load.activitySlots", 200))
+                .setUsingVirtualThreads(virtualThreads)
+                .build();
+        ShipmentWorkflowSettings settings = new ShipmentWorkflowSettings();
+        settings.setLocalActivities(Boolean.getBoolean("load.localActivities"));
+        settings.setWaypointReservations(Boolean.getBoolean("load.waypointReservations"));
+        settings.setNextHopLookahead(Boolean.getBoolean("load.lookahead"));
+        settings.setMaxHopsPerActivity(Integer.getInteger("load.maxHopsPerActivity", 1));
+        boolean compensationQueue = Boolean.parseBoolean(System.getProperty("load.compensationQueue", "true"));
+        if (compensationQueue) {
+            settings.setCompensationTaskQueue("shipment-compensation-queue");
+        }
+        WorkerOptions compensationWorkerOptions = WorkerOptions.newBuilder(workerOptions)
+                .setMaxConcurrentActivityExecutionSize(Integer.getInteger("load.compensationSlots", 50))
+                .build();
+        settings.setWaypointCapacity(Math.max(1, behaviour.getWaypointCapacity()));
+
+        List<String> route = new ArrayList<>();
+        for (int i = 0; i < waypoints; i++) {
+            route.add("City-" + i);
+        }
+
+        AppConfig config = new AppConfig();
+        RouletteHttpProperties httpProperties = new RouletteHttpProperties();
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(64, virtualThreads
+                ? new VirtualThreadTaskExecutor("workflow-client-").getVirtualThreadFactory()
+                : Executors.defaultThreadFactory());
+        try (RouletteStub stub = new RouletteStub(route, behaviour);
+             PoolingHttpClientConnectionManager connectionManager = config.rouletteConnectionManager(httpProperties);
+             CloseableHttpClient httpClient = config.rouletteHttpClient(connectionManager, httpProperties);
+             TestWorkflowEnvironment testEnv = TestWorkflowEnvironment.newInstance(TestEnvironmentOptions.newBuilder()
+                     .setUseTimeskipping(timeSkipping)
+                     .setWorkerFactoryOptions(WorkerFactoryOptions.newBuilder()
+                             .setUsingVirtualWorkflowThreads(virtualThreads)
+                             .build())
+                     .build())) {
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            ActivityMetrics activityMetrics = new ActivityMetrics(meterRegistry);
+            ShipmentClient shipmentClient = new ShipmentClient();
+            ReflectionTestUtils.setField(shipmentClient, "restTemplate", config.restTemplate(httpClient, httpProperties));
+            ReflectionTestUtils.setField(shipmentClient, "baseUrl", stub.baseUrl());
+            ReflectionTestUtils.setField(shipmentClient, "meterRegistry", meterRegistry);
+            ReactiveShipmentClient reactiveClient = new ReactiveShipmentClient();
+            ReflectionTestUtils.setField(reactiveClient, "rouletteWebClient", config.rouletteWebClient(httpProperties));
+            ReflectionTestUtils.setField(reactiveClient, "baseUrl", stub.baseUrl());
+            ReflectionTestUtils.setField(reactiveClient, "meterRegistry", meterRegistry);
+            RouteProvider routeProvider = new RouteProvider(shipmentClient, meterRegistry,
+                    Duration.ofMinutes(5), Duration.ofMinutes(1));
+            ShipmentActivityImpl activity = new ShipmentActivityImpl(shipmentClient, routeProvider, activityMetrics);
+
+            Worker workflowWorker = testEnv.newWorker("shipment-workflow-queue", workerOptions);
+            workflowWorker.registerWorkflowImplementationTypes(ShipmentWorkflowImpl.class, WaypointWorkflowImpl.class);
+            workflowWorker.registerActivitiesImplementations(activity);
+            Worker activityWorker = testEnv.newWorker("shipment-activity-queue", workerOptions);
+            TaskQueueProperties taskQueues = new TaskQueueProperties();
+            WorkflowClient workflowClient = testEnv.getWorkflowClient();
+            ShipmentCompensateActivityImpl compensationActivity = new ShipmentCompensateActivityImpl(reactiveClient, activityMetrics);
+            activityWorker.registerActivitiesImplementations(activity, compensationActivity,
+                    new WaypointActivityImpl(workflowClient, settings, taskQueues, shipmentClient, activityMetrics));
+            if (compensationQueue) {
+                testEnv.newWorker("shipment-compensation-queue", compensationWorkerOptions)
+                        .registerActivitiesImplementations(compensationActivity);
+            }
+            testEnv.start();
+
+            ShipmentService shipmentService = new ShipmentService(workflowClient, settings, taskQueues,
+                    new InMemoryAuditProjectionStore(shipments, Duration.ZERO), clientExecutor);
+
+            System.out.printf("Running %d shipments over %d waypoints (failure rate %.2f, capacity %d, time skipping %s, "
+                            + "virtual threads %s, waypoint reservations %s, lookahead %s, compensation queue %s, "
+                            + "max hops per activity %d)%n", shipments, waypoints,
+                    behaviour.getFailureRate(), behaviour.getWaypointCapacity(), timeSkipping, virtualThreads,
+                    settings.isWaypointReservations(), settings.isNextHopLookahead(), compensationQueue,
+                    settings.getMaxHopsPerActivity());
+            resetPeakUsage();
+            long started = System.nanoTime();
+            List<CompletableFuture<Object>> results = new ArrayList<>(shipments);
+            List<String> workflowIds = new ArrayList<>(shipments);
+            for (int i = 0; i < shipments; i++) {
+                ShipmentResponse response = shipmentService.startShipment(new ShipmentRequest("load-" + i));
+                workflowIds.add(response.getWorkflowId());
+                results.add(workflowClient.newUntypedWorkflowStub(response.getWorkflowId())
+                        .getResultAsync(String.class)
+                        .handle((result, error) -> error == null ? result : error));
+            }
+            int failed = 0;
+            for (CompletableFuture<Object> result : results) {
+                if (result.get(1, TimeUnit.HOURS) instanceof Throwable) {
+                    failed++;
+                }
+            }
+            double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+            long peakThreads = ManagementFactory.getThreadMXBean().getPeakThreadCount();
+            long peakHeap = peakHeapUsed();
+
+            List<ShipmentStats> stats = new ArrayList<>(shipments);
+            for (String workflowId : workflowIds) {
+                stats.add(ShipmentStats.of(workflowClient.fetchHistory(workflowId)));
+            }
+            report(shipments, failed, elapsedSeconds, stats, stub);
+            System.out.printf("JVM:              peak %d platform threads, peak heap %d MB%n",
+                    peakThreads, peakHeap / (1024 * 1024));
+        } finally {
+            clientExecutor.shutdownNow();
+        }
+    }
+
+    private static void report(int shipments, int failed, double elapsedSeconds, List<ShipmentStats> stats,
+                               RouletteStub stub) {
+        long[] delivery = stats.stream().mapToLong(ShipmentStats::deliveryMillis).sorted().toArray();
+        System.out.printf("%nShipments:        %d (%d failed) in %.1f s%n", shipments, failed, elapsedSeconds);
+        System.out.printf("Throughput:       %.1f shipments/s%n", shipments / elapsedSeconds);
+        System.out.printf("Delivery time:    p50 %d ms, p95 %d ms, p99 %d ms, max %d ms%n",
+                percentile(delivery, 0.50), percentile(delivery, 0.95), percentile(delivery, 0.99),
+                delivery[delivery.length - 1]);
+        System.out.printf("Per shipment:     %.1f hops, %.2f compensations, %.1f s backoff, %.0f history events%n",
+                stats.stream().mapToInt(ShipmentStats::hops).average().orElse(0),
+                stats.stream().mapToInt(ShipmentStats::compensations).average().orElse(0),
+                stats.stream().mapToLong(ShipmentStats::backoffMillis).average().orElse(0) / 1000.0,
+                stats.stream().mapToInt(ShipmentStats::historyEvents).average().orElse(0));
+        System.out.printf("Downstream:       %d requests, %d chaos 503s, %d conflicts%n",
+                stub.requests(), stub.chaosFailures(), stub.conflicts());
+        printScheduleToStart("Move wait:", stats.stream().flatMap(s -> s.moveWaits().stream()));
+        printScheduleToStart("Rollback wait:", stats.stream().flatMap(s -> s.compensationWaits().stream()));
+    }
+
+    private static void printScheduleToStart(String label, Stream<Long> waits) {
+        long[] sorted = waits.mapToLong(Long::longValue).sorted().toArray();
+        if (sorted.length == 0) {
+            System.out.printf("%-18sno activities%n", label);
+            return;
+        }
+        System.out.printf("%-18sschedule-to-start p50 %d ms, p95 %d ms, max %d ms (%d activities)%n", label,
+                percentile(sorted, 0.50), percentile(sorted, 0.95), sorted[sorted.length - 1], sorted.length);
+    }
+
+    private static void resetPeakUsage() {
+        ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Sum of the per-pool heap peaks since the last reset; an upper bound on the peak heap
+     * actually in use, since the pools need not peak at the same moment.
+     */
+    private static long peakHeapUsed() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    /**
+     * Per-shipment figures from one workflow history: completed moves and compensations,
+     * summed timer durations (the workflow's backoff sleeps) and start-to-close time. A MoveAlong
+     * run counts the hops from its start index to the index it returned or, when it failed, to
+     * the index reached carried in the failure details.
+     */
+    record ShipmentStats(int hops, int compensations, long backoffMillis, long deliveryMillis, int historyEvents,
+                         List<Long> moveWaits, List<Long> compensationWaits) {
+
+        static ShipmentStats of(WorkflowExecutionHistory history) {
+            Map<Long, String> activityTypes = new HashMap<>();
+            Map<Long, Long> scheduledAt = new HashMap<>();
+            Map<Long, Integer> runStarts = new HashMap<>();
+            List<Long> moveWaits = new ArrayList<>();
+            List<Long> compensationWaits = new ArrayList<>();
+            int hops = 0;
+            int compensations = 0;
+            long backoffMillis = 0;
+            List<HistoryEvent> events = history.getEvents();
+            for (HistoryEvent event : events) {
+                if (event.getEventType() == EventType.EVENT_TYPE_ACTIVITY_TASK_SCHEDULED) {
+                    activityTypes.put(event.getEventId(),
+                            event.getActivityTaskScheduledEventAttributes().getActivityType().getName());
+                    scheduledAt.put(event.getEventId(), toMillis(event.getEventTime()));
+                    if ("MoveAlong".equals(activityTypes.get(event.getEventId()))) {
+                        runStarts.put(event.getEventId(),
+                                decodeInt(event.getActivityTaskScheduledEventAttributes().getInput(), 2));
+                    }
+                } else if (event.getEventType() == EventType.EVENT_TYPE_ACTIVITY_TASK_STARTED
+                        && event.getActivityTaskStartedEventAttributes().getAttempt() == 1) {
+                    // A retried activity records only its last start, so only first attempts count
+                    long scheduledEventId = event.getActivityTaskStartedEventAttributes().getScheduledEventId();
+                    String type = activityTypes.get(scheduledEventId);
+                    long wait = toMillis(event.getEventTime()) - scheduledAt.get(scheduledEventId);
+                    if ("MoveShipment".equals(type) || "MoveAlong".equals(type)) {
+                        moveWaits.add(wait);
+                    } else if ("CompensateMove".equals(type)) {
+                        compensationWaits.add(wait);
+                    }
+                } else if (event.getEventType() == EventType.EVENT_TYPE_ACTIVITY_TASK_COMPLETED) {
+                    String type = activityTypes.get(event.getActivityTaskCompletedEventAttributes().getScheduledEventId());
+                    if ("MoveShipment".equals(type)) {
+                        hops++;
+                    } else if ("MoveAlong".equals(type)) {
+                        ActivityTaskCompletedEventAttributes completed = event.getActivityTaskCompletedEventAttributes();
+                        hops += decodeInt(completed.getResult(), 0) - runStarts.get(completed.getScheduledEventId());
+                    } else if ("CompensateMove".equals(type)) {
+                        compensations++;
+                    }
+                } else if (event.getEventType() == EventType.EVENT_TYPE_ACTIVITY_TASK_FAILED) {
+                    ActivityTaskFailedEventAttributes failed = event.getActivityTaskFailedEventAttributes();
+                    Integer runStart = runStarts.get(failed.getScheduledEventId());
+                    Payloads details = failed.getFailure().getApplicationFailureInfo().getDetails();
+                    if (runStart != null && details.getPayloadsCount() > 0) {
+                        hops += Math.max(0, decodeInt(details, details.getPayloadsCount() - 1) - runStart);
+                    }
+                } else if (event.getEventType() == EventType.EVENT_TYPE_MARKER_RECORDED
+                        && isCompletedLocalMove(event.getMarkerRecordedEventAttributes())) {
+                    hops++;
+                } else if (event.getEventType() == EventType.EVENT_TYPE_TIMER_STARTED) {
+                    backoffMillis += event.getTimerStartedEventAttributes().getStartToFireTimeout().getSeconds() * 1000;
+                }
+            }
+            long start = toMillis(events.get(0).getEventTime());
+            long end = toMillis(events.get(events.size() - 1).getEventTime());
+            return new ShipmentStats(hops, compensations, backoffMillis, end - start, events.size(),
+                    moveWaits, compensationWaits);
+        }
+
+        /**
+         * Local activities leave a marker whose "type" detail holds the JSON-encoded activity type.
+         */
+        private static boolean isCompletedLocalMove(MarkerRecordedEventAttributes marker) {
+            Payloads type = marker.getDetailsOrDefault("type", Payloads.getDefaultInstance());
+            return !marker.hasFailure() && type.getPayloadsCount() > 0
+                    && type.getPayloads(0).getData().toStringUtf8().contains("MoveShipment");
+        }
+
+        private static int decodeInt(Payloads payloads, int index) {
+            return GlobalDataConverter.get().fromPayloads(index, Optional.of(payloads), Integer.class, Integer.class);
+        }
+
+        private static long toMillis(com.google.protobuf.Timestamp timestamp) {
+            return timestamp.getSeconds() * 1000 + timestamp.getNanos() / 1_000_000;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.shipmentTemporal.perf;
+
+import com.example.shipmentTemporal.models.AuditEvent;
+import com.example.shipmentTemporal.models.AuditLog;
+import com.example.shipmentTemporal.models.CompactRoute;
+import com.example.shipmentTemporal.models.RouteSnapshot;
+import com.example.shipmentTemporal.models.ShipmentWorkflowSettings;
+import com.example.shipmentTemporal.service.temporal.workflows.ShipmentActivityOptions;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.GlobalDataConverter;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures the heap held by the state of cached ShipmentWorkflowImpl executions, in bytes per
+ * workflow, at growing numbers of shipments. Two layouts are compared:
+ * <ul>
+ *   <li>per workflow: each execution holds its own deserialized route and settings and builds
+ *   its own activity options, as before routes and options were shared;</li>
+ *   <li>shared: each execution holds the canonical {@link CompactRoute} and
+ *   {@link ShipmentActivityOptions} for its route and settings.</li>
+ * </ul>
+ * Both hold an {@link AuditLog} of the same length. Only state owned by the workflow class is
+ * counted; the SDK's own per-execution structures (workflow thread, state machines, stubs)
+ * are the same in both layouts and are left out.
+ * <p>
+ * It then prints the size of one audit trail after {@code footprint.auditCycles}
+ * fail/compensate cycles, kept as a legacy {@code List<AuditEvent>}, as an unbounded
+ * {@link AuditLog} and as one rolled up at 200 events.
+ * <p>
+ * Parameters are system properties, all optional:
+ * <pre>
+ * footprint.shipments=1000,10000,100000   footprint.waypoints=10   footprint.auditEvents=20
+ * footprint.auditCycles=500
+ * </pre>
+ * Run with a heap large enough for the largest count, e.g. {@code -Xmx4g}.
+ */
+public class WorkflowFootprintBenchmark {
+
+    public static void main(String[] args) {
+        int[] counts = Arrays.stream(System.getProperty("footprint.shipments", "1000,10000,100000").split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        int waypoints = Integer.getInteger("footprint.waypoints", 10);
+        int auditEvents = Integer.getInteger("footprint.auditEvents", 20);
+
+        List<String> cities = new ArrayList<>();
+        for (int i = 0; i < waypoints; i++) {
+            cities.add("City-" + i);
+        }
+        RouteSnapshot route = RouteSnapshot.of(cities);
+        ShipmentWorkflowSettings settings = new ShipmentWorkflowSettings();
+        DataConverter converter = GlobalDataConverter.get();
+
+        // What building the options costs an execution on top of the settings it builds them from
+        ShipmentActivityOptions sample = ShipmentActivityOptions.forSettings(settings);
+        long optionsBytes = GraphLayout.parseInstance(sample)
+                .subtract(GraphLayout.parseInstance(settings))
+                .totalSize();
+
+        System.out.printf("%10s %18s %14s %8s%n", "shipments", "per workflow B/wf", "shared B/wf", "saved");
+        for (int count : counts) {
+            Object[] perWorkflow = new Object[count];
+            Object[] shared = new Object[count];
+            for (int i = 0; i < count; i++) {
+                RouteSnapshot ownRoute = roundTrip(converter, route, RouteSnapshot.class);
+                ShipmentWorkflowSettings ownSettings = roundTrip(converter, settings, ShipmentWorkflowSettings.class);
+                perWorkflow[i] = new Object[]{ownRoute, ownSettings, auditLog(i, auditEvents)};
+                shared[i] = new Object[]{
+                        CompactRoute.of(ownRoute),
+                        ShipmentActivityOptions.forSettings(ownSettings),
+                        auditLog(i, auditEvents)};
+            }
+            double perWorkflowBytes = (double) GraphLayout.parseInstance(perWorkflow).totalSize() / count + optionsBytes;
+            double sharedBytes = (double) GraphLayout.parseInstance(shared).totalSize() / count;
+            System.out.printf("%10d %18.0f %14.0f %7.0f%%%n", count, perWorkflowBytes, sharedBytes,
+                    100 * (1 - sharedBytes / perWorkflowBytes));
+        }
+
+        printAuditTrail(cities, Integer.getInteger("footprint.auditCycles", 500));
+    }
+
+    private static void printAuditTrail(List<String> route, int cycles) {
+        String reason = "Failed to move shipment: 409 destination occupied";
+        List<AuditEvent> legacy = new ArrayList<>();
+        legacy.add(AuditEvent.created("FOOTPRINT-001", Instant.ofEpochMilli(0)));
+        AuditLog unbounded = new AuditLog("FOOTPRINT-001", 0);
+        AuditLog bounded = new AuditLog("FOOTPRINT-001", 200);
+        unbounded.created(0);
+        bounded.created(0);
+        for (int cycle = 0; cycle < cycles; cycle++) {
+            long timestamp = cycle * 3L;
+            legacy.add(AuditEvent.moved(route.get(0), route.get(1), Instant.ofEpochMilli(timestamp + 1)));
+            legacy.add(AuditEvent.failed(route.get(1), route.get(2), reason, Instant.ofEpochMilli(timestamp + 2)));
+            legacy.add(AuditEvent.compensated(route.get(1), route.get(0), "Compensated last move",
+                    Instant.ofEpochMilli(timestamp + 3)));
+            for (AuditLog log : List.of(unbounded, bounded)) {
+                log.moved(0, 1, timestamp + 1);
+                log.failed(1, 2, reason, timestamp + 2);
+                log.compensated(1, 0, "Compensated last move", timestamp + 3);
+            }
+        }
+        System.out.printf("%nAudit trail after %d fail/compensate cycles: legacy=%d B, compact=%d B, compact+rollup(200)=%d B%n",
+                cycles, GraphLayout.parseInstance(legacy).totalSize(), GraphLayout.parseInstance(unbounded).totalSize(),
+                GraphLayout.parseInstance(bounded).totalSize());
+    }
+
+    private static <T> T roundTrip(DataConverter converter, T value, Class<T> type) {
+        return converter.fromPayload(converter.toPayload(value).orElseThrow(), type, type);
+    }
+
+    private static AuditLog auditLog(int shipment, int events) {
+        AuditLog log = new AuditLog("shipment-" + shipment, 200);
+        log.created(0);
+        for (int i = 1; i < events; i++) {
+            log.moved(i - 1, i, i * 1000L);
+        }
+        return log;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.shipmentTemporal;
+
+import com.example.shipmentTemporal.models.AuditEvent;
+import com.example.shipmentTemporal.models.RouteSnapshot;
+import com.example.shipmentTemporal.service.temporal.activities.ShipmentActivity;
+import com.example.shipmentTemporal.service.temporal.activities.ShipmentCompensationActivity;
+import com.example.shipmentTemporal.service.temporal.workflows.ShipmentWorkflow;
+import com.example.shipmentTemporal.service.temporal.workflows.ShipmentWorkflowImpl;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.common.WorkflowExecutionHistory;
+import io.temporal.failure.ApplicationFailure;
+import io.temporal.testing.TestEnvironmentOptions;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.testing.WorkflowReplayer;
+import io.temporal.worker.Worker;
+import io.temporal.worker.WorkerFactoryOptions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Replays ShipmentWorkflowImpl histories, which is what a worker does for every execution that
+ * is not in its sticky cache. Recorded histories under {@code histories/} fail the build when a
+ * code change makes them nondeterministic. Replay time is measured by {@code ReplayBenchmark}.
+ */
+class ShipmentWorkflowReplayTest {
+
+    /**
+     * The baseline history was recorded before settings memos, checkpoints and route snapshots:
+     * its start carries only the handle and getRoute returned a bare city list. The others were
+     * recorded with memo settings covering the default path (compensation), waypoint
+     * reservations with audit projection and search attributes, and local activities with the
+     * next-hop lookahead. Features added later must stay off for executions whose memo
+     * predates them, so these keep replaying.
+     */
+    private static final List<String> RECORDED_HISTORIES = List.of(
+            "baseline-compensation.json",
+            "compensation-default-settings.json",
+            "reservations-audit-projection.json",
+            "local-activities-lookahead.json");
+
+    @Test
+    void testRecordedHistoriesReplay() throws Exception {
+        for (String name : RECORDED_HISTORIES) {
+            WorkflowExecutionHistory history = WorkflowExecutionHistory.fromJson(read("/histories/" + name));
+            WorkflowReplayer.replayWorkflowExecution(history, ShipmentWorkflowImpl.class);
+        }
+    }
+
+    @Test
+    void testFreshHistoriesReplay() throws Exception {
+        for (int compensations : new int[]{0, 2}) {
+            WorkflowReplayer.replayWorkflowExecution(recordHistory(5, compensations), ShipmentWorkflowImpl.class);
+        }
+    }
+
+    @Test
+    void testAuditTrailIsStableAcrossReplays() throws Exception {
+        // Without a workflow cache every query replays the history from the start
+        try (TestWorkflowEnvironment testEnv = TestWorkflowEnvironment.newInstance(TestEnvironmentOptions.newBuilder()
+                .setWorkerFactoryOptions(WorkerFactoryOptions.newBuilder()
+                        .setWorkflowCacheSize(0)
+                        .build())
+                .build())) {
+            ShipmentWorkflow workflow = runShipment(testEnv, 4, 1);
+
+            List<AuditEvent> first = workflow.getAuditTrail();
+            Thread.sleep(20);
+            List<AuditEvent> second = workflow.getAuditTrail();
+
+            assertEquals(8, first.size());
+            assertEquals(first, second);
+        }
+    }
+
+    private static WorkflowExecutionHistory recordHistory(int waypoints, int compensations) {
+        try (TestWorkflowEnvironment testEnv = TestWorkflowEnvironment.newInstance()) {
+            runShipment(testEnv, waypoints, compensations);
+            return testEnv.getWorkflowClient().fetchHistory("replay-" + waypoints + "-" + compensations);
+        }
+    }
+
+    /**
+     * Runs a shipment whose second hop is rejected {@code compensations} times, each rejection
+     * compensating back to the origin.
+     */
+    private static ShipmentWorkflow runShipment(TestWorkflowEnvironment testEnv, int waypoints, int compensations) {
+        List<String> route = new ArrayList<>();
+        for (int i = 0; i < waypoints; i++) {
+            route.add("City-" + i);
+        }
+        ShipmentActivity activity = mock(ShipmentActivity.class, withSettings().withoutAnnotations());
+        when(activity.getRoute()).thenReturn(RouteSnapshot.of(route));
+        when(activity.createShipment(anyString())).thenReturn(1);
+        if (compensations > 0) {
+            ApplicationFailure rejected = ApplicationFailure.newNonRetryableFailure("Move rejected", "DownstreamRejected");
+            var stubbing = doThrow(rejected);
+            for (int i = 1; i < compensations; i++) {
+                stubbing = stubbing.doThrow(rejected);
+            }
+            stubbing.doNothing().when(activity).moveShipment(1, "City-1", "City-2");
+        }
+
+        Worker workflowWorker = testEnv.newWorker("shipment-workflow-queue");
+        workflowWorker.registerWorkflowImplementationTypes(ShipmentWorkflowImpl.class);
+        // getRoute runs as a local activity on the workflow worker
+        workflowWorker.registerActivitiesImplementations(activity);
+        Worker activityWorker = testEnv.newWorker("shipment-activity-queue");
+        activityWorker.registerActivitiesImplementations(activity,
+                mock(ShipmentCompensationActivity.class, withSettings().withoutAnnotations()));
+        testEnv.start();
+
+        ShipmentWorkflow workflow = testEnv.getWorkflowClient().newWorkflowStub(ShipmentWorkflow.class,
+                WorkflowOptions.newBuilder()
+                        .setWorkflowId("replay-" + waypoints + "-" + compensations)
+                        .setTaskQueue("shipment-workflow-queue")
+                        .build());
+        workflow.executeShipment("REPLAY-001", null);
+        return workflow;
+    }
+
+    private static String read(String resource) throws IOException {
+        try (InputStream in = ShipmentWorkflowReplayTest.class.getResourceAsStream(resource)) {
+            assertNotNull(in, "missing " + resource);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -1,18 +1,60 @@
 package com.example.shipmentTemporal;
 
+import com.example.shipmentTemporal.clients.DownstreamException;
+import com.example.shipmentTemporal.clients.RouteProvider;
+import com.example.shipmentTemporal.clients.ShipmentClient;
+import com.example.shipmentTemporal.configs.TaskQueueProperties;
 import com.example.shipmentTemporal.models.AuditEvent;
+import com.example.shipmentTemporal.models.AuditEventType;
+import com.example.shipmentTemporal.models.MoveRequest;
+import com.example.shipmentTemporal.models.RouteSnapshot;
+import com.example.shipmentTemporal.models.ShipmentCheckpoint;
+import com.example.shipmentTemporal.models.ShipmentStarted;
+import com.example.shipmentTemporal.models.ShipmentWorkflowSettings;
+import com.example.shipmentTemporal.models.StartMilestone;
+import com.example.shipmentTemporal.models.WaypointOccupancy;
+import com.example.shipmentTemporal.models.WaypointState;
+import com.example.shipmentTemporal.service.temporal.activities.ActivityMetrics;
 import com.example.shipmentTemporal.service.temporal.activities.ShipmentActivity;
+import com.example.shipmentTemporal.service.temporal.activities.ShipmentActivityImpl;
+import com.example.shipmentTemporal.service.temporal.activities.ShipmentCompensationActivity;
+import com.example.shipmentTemporal.service.temporal.activities.WaypointActivity;
+import com.example.shipmentTemporal.service.temporal.activities.WaypointActivityImpl;
 import com.example.shipmentTemporal.service.temporal.workflows.ShipmentWorkflow;
 import com.example.shipmentTemporal.service.temporal.workflows.ShipmentWorkflowImpl;
+import com.example.shipmentTemporal.service.temporal.workflows.WaypointWorkflow;
+import com.example.shipmentTemporal.service.temporal.workflows.WaypointWorkflowImpl;
+import com.uber.m3.tally.RootScopeBuilder;
+import com.uber.m3.tally.Scope;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.temporal.api.enums.v1.EventType;
+import io.temporal.api.enums.v1.WorkflowIdConflictPolicy;
+import io.temporal.client.UpdateOptions;
+import io.temporal.client.WithStartWorkflowOperation;
 import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowFailedException;
 import io.temporal.client.WorkflowOptions;
+import io.temporal.client.WorkflowStub;
+import io.temporal.client.WorkflowUpdateHandle;
+import io.temporal.client.WorkflowUpdateStage;
+import io.temporal.common.WorkflowExecutionHistory;
+import io.temporal.common.reporter.MicrometerClientStatsReporter;
+import io.temporal.failure.ApplicationFailure;
+import io.temporal.testing.TestEnvironmentOptions;
 import io.temporal.testing.TestWorkflowEnvironment;
 import io.temporal.worker.Worker;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -25,10 +67,19 @@ class ShipmentWorkflowTest {
     private Worker activityWorker;
     private WorkflowClient workflowClient;
     private ShipmentActivity mockedActivity;
+    private ShipmentCompensationActivity mockedCompensationActivity;
+    private SimpleMeterRegistry meterRegistry;
+    private Scope metricsScope;
 
     @BeforeEach
     void setUp() {
-        testEnv = TestWorkflowEnvironment.newInstance();
+        meterRegistry = new SimpleMeterRegistry();
+        metricsScope = new RootScopeBuilder()
+                .reporter(new MicrometerClientStatsReporter(meterRegistry))
+                .reportEvery(com.uber.m3.util.Duration.ofSeconds(1));
+        testEnv = TestWorkflowEnvironment.newInstance(TestEnvironmentOptions.newBuilder()
+                .setMetricsScope(metricsScope)
+                .build());
 
         workflowWorker = testEnv.newWorker("shipment-workflow-queue");
         workflowWorker.registerWorkflowImplementationTypes(ShipmentWorkflowImpl.class);
@@ -36,6 +87,7 @@ class ShipmentWorkflowTest {
         activityWorker = testEnv.newWorker("shipment-activity-queue");
 
         mockedActivity = mock(ShipmentActivity.class, withSettings().withoutAnnotations());
+        mockedCompensationActivity = mock(ShipmentCompensationActivity.class, withSettings().withoutAnnotations());
 
         workflowClient = testEnv.getWorkflowClient();
     }
@@ -51,11 +103,11 @@ class ShipmentWorkflowTest {
         String shipmentHandle = "TEST-SHIPMENT-001";
         Integer shipmentId = 123;
 
-        when(mockedActivity.getRoute()).thenReturn(expectedRoute);
+        when(mockedActivity.getRoute()).thenReturn(RouteSnapshot.of(expectedRoute));
         when(mockedActivity.createShipment(shipmentHandle)).thenReturn(shipmentId);
         doNothing().when(mockedActivity).moveShipment(anyInt(), anyString(), anyString());
 
-        activityWorker.registerActivitiesImplementations(mockedActivity);
+        registerActivities(mockedActivity, mockedCompensationActivity);
         testEnv.start();
 
         ShipmentWorkflow workflow = workflowClient.newWorkflowStub(
@@ -65,7 +117,7 @@ class ShipmentWorkflowTest {
                         .build()
         );
 
-        String result = workflow.executeShipment(shipmentHandle);
+        String result = workflow.executeShipment(shipmentHandle, null);
 
         assertTrue(result.contains("delivered successfully"));
         assertTrue(result.contains("Bangalore"));
@@ -78,7 +130,7 @@ class ShipmentWorkflowTest {
         verify(mockedActivity).moveShipment(shipmentId, "Delhi", "Jaipur");
         verify(mockedActivity).moveShipment(shipmentId, "Jaipur", "Bangalore");
 
-        verify(mockedActivity, never()).compensateMove(anyInt(), anyString(), anyString());
+        verify(mockedCompensationActivity, never()).compensateMove(anyInt(), anyString(), anyString());
 
         List<AuditEvent> auditTrail = workflow.getAuditTrail();
         assertNotNull(auditTrail);
@@ -98,12 +150,12 @@ class ShipmentWorkflowTest {
     }
 
     @Test
-    void testBacktrackAndRerouteAfterThreeSuccessiveFailures() {
+    void testBacktrackAndRerouteAfterThreeSuccessiveFailures() throws Exception {
         List<String> route = List.of("Mumbai", "Delhi", "Jaipur", "Bangalore");
         String shipmentHandle = "TEST-SHIPMENT-002";
         Integer shipmentId = 456;
 
-        when(mockedActivity.getRoute()).thenReturn(route);
+        when(mockedActivity.getRoute()).thenReturn(RouteSnapshot.of(route));
         when(mockedActivity.createShipment(shipmentHandle)).thenReturn(shipmentId);
 
         // Scenario:
@@ -124,9 +176,9 @@ class ShipmentWorkflowTest {
 
         doNothing().when(mockedActivity).moveShipment(shipmentId, "Jaipur", "Bangalore");
 
-        doNothing().when(mockedActivity).compensateMove(shipmentId, "Delhi", "Mumbai");
+        doNothing().when(mockedCompensationActivity).compensateMove(shipmentId, "Delhi", "Mumbai");
 
-        activityWorker.registerActivitiesImplementations(mockedActivity);
+        registerActivities(mockedActivity, mockedCompensationActivity);
         testEnv.start();
 
         ShipmentWorkflow workflow = workflowClient.newWorkflowStub(
@@ -136,7 +188,7 @@ class ShipmentWorkflowTest {
                         .build()
         );
 
-        String result = workflow.executeShipment(shipmentHandle);
+        String result = workflow.executeShipment(shipmentHandle, null);
 
         assertTrue(result.contains("delivered successfully"));
         assertTrue(result.contains("Bangalore"));
@@ -145,7 +197,7 @@ class ShipmentWorkflowTest {
         verify(mockedActivity, times(4)).moveShipment(shipmentId, "Delhi", "Jaipur");
         verify(mockedActivity, times(1)).moveShipment(shipmentId, "Jaipur", "Bangalore");
 
-        verify(mockedActivity, times(1)).compensateMove(shipmentId, "Delhi", "Mumbai");
+        verify(mockedCompensationActivity, times(1)).compensateMove(shipmentId, "Delhi", "Mumbai");
 
         List<AuditEvent> auditTrail = workflow.getAuditTrail();
         assertNotNull(auditTrail);
@@ -165,5 +217,422 @@ class ShipmentWorkflowTest {
         boolean hasCompletedEvent = auditTrail.stream()
                 .anyMatch(event -> "COMPLETED".equals(event.getEventType().name()));
         assertTrue(hasCompletedEvent);
+
+        metricsScope.close();
+        assertEquals(1.0, meterRegistry.get("shipment.compensations").counter().count());
+        assertEquals(1, meterRegistry.get("shipment.backoff").timer().count());
+        assertEquals(1, meterRegistry.get("shipment.hop.latency").tag("outcome", "failure").timer().count());
+        assertEquals(4, meterRegistry.get("shipment.hop.latency").tag("outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("shipment.duration").timer().count());
+    }
+
+    @Test
+    void testContinueAsNewCarriesPositionAndAuditTrail() {
+        List<String> route = List.of("Mumbai", "Delhi", "Jaipur", "Bangalore");
+        String shipmentHandle = "TEST-SHIPMENT-003";
+        Integer shipmentId = 789;
+
+        when(mockedActivity.getRoute()).thenReturn(RouteSnapshot.of(route));
+        when(mockedActivity.createShipment(shipmentHandle)).thenReturn(shipmentId);
+        doNothing().when(mockedActivity).moveShipment(anyInt(), anyString(), anyString());
+
+        registerActivities(mockedActivity, mockedCompensationActivity);
+        testEnv.start();
+
+        // A budget this small makes every hop start a new run.
+        ShipmentWorkflowSettings settings = new ShipmentWorkflowSettings();
+        settings.setContinueAsNewAfterEvents(10);
+        String workflowId = "shipment-" + shipmentHandle;
+        ShipmentWorkflow workflow = workflowClient.newWorkflowStub(
+                ShipmentWorkflow.class,
+                WorkflowOptions.newBuilder()
+                        .setWorkflowId(workflowId)
+                        .setTaskQueue("shipment-workflow-queue")
+                        .setMemo(Map.of(ShipmentWorkflow.SETTINGS_MEMO_KEY, settings))
+                        .build()
+        );
+
+        String result = workflow.executeShipment(shipmentHandle, null);
+
+        assertTrue(result.contains("delivered successfully"));
+        verify(mockedActivity, times(1)).getRoute();
+        verify(mockedActivity, times(1)).createShipment(shipmentHandle);
+        verify(mockedActivity).moveShipment(shipmentId, "Mumbai", "Delhi");
+        verify(mockedActivity).moveShipment(shipmentId, "Delhi", "Jaipur");
+        verify(mockedActivity).moveShipment(shipmentId, "Jaipur", "Bangalore");
+
+        ShipmentWorkflow latestRun = workflowClient.newWorkflowStub(ShipmentWorkflow.class, workflowId);
+        List<AuditEvent> auditTrail = latestRun.getAuditTrail();
+        assertEquals(5, auditTrail.size());
+        assertEquals("CREATED", auditTrail.get(0).getEventType().name());
+        assertEquals("Mumbai", auditTrail.get(1).getFrom());
+        assertEquals("COMPLETED", auditTrail.get(4).getEventType().name());
+        assertEquals(3, latestRun.getProgress().getCurrentIndex());
+    }
+
+    @Test
+    void testPendingStartUpdateIsAnsweredBeforeContinuingAsNew() throws Exception {
+        when(mockedActivity.getRoute()).thenReturn(RouteSnapshot.of(List.of("Mumbai", "Delhi", "Jaipur")));
+        when(mockedActivity.createShipment("CAN-START")).thenReturn(5);
+        registerActivities(mockedActivity, mockedCompensationActivity);
+        testEnv.start();
+
+        // The budget is spent before the first hop, so the run continues as new while FIRST_HOP is pending
+        ShipmentWorkflowSettings settings = new ShipmentWorkflowSettings();
+        settings.setContinueAsNewAfterEvents(10);
+        ShipmentWorkflow workflow = workflowClient.newWorkflowStub(ShipmentWorkflow.class,
+                WorkflowOptions.newBuilder()
+                        .setWorkflowId("shipment-CAN-START")
+                        .setWorkflowIdConflictPolicy(WorkflowIdConflictPolicy.WORKFLOW_ID_CONFLICT_POLICY_USE_EXISTING)
+                        .setTaskQueue("shipment-workflow-queue")
+                        .setMemo(Map.of(ShipmentWorkflow.SETTINGS_MEMO_KEY, settings))
+                        .build());
+        WorkflowUpdateHandle<ShipmentStarted> update = WorkflowClient.startUpdateWithStart(workflow::awaitStart,
+                StartMilestone.FIRST_HOP,
+                UpdateOptions.<ShipmentStarted>newBuilder().setWaitForStage(WorkflowUpdateStage.ACCEPTED).build(),
+                new WithStartWorkflowOperation<>(workflow::executeShipment, "CAN-START", (ShipmentCheckpoint) null));
+
+        ShipmentStarted started = update.getResultAsync(30, TimeUnit.SECONDS).get();
+
+        assertTrue(started.isMilestonePending());
+        assertEquals(5, started.getShipmentId());
+        assertEquals(0, started.getCurrentIndex());
+        assertTrue(workflowClient.newUntypedWorkflowStub("shipment-CAN-START").getResult(String.class)
+                .contains("delivered successfully"));
+    }
+
+    @Test
+    void testRouteIsFetchedWithoutAnActivityTask() {
+        when(mockedActivity.getRoute()).thenReturn(RouteSnapshot.of(List.of("Mumbai", "Delhi")));
+        when(mockedActivity.createShipment("ROUTE-001")).thenReturn(9);
+        registerActivities(mockedActivity, mockedCompensationActivity);
+        testEnv.start();
+
+        ShipmentWorkflow workflow = workflowClient.newWorkflowStub(ShipmentWorkflow.class,
+                WorkflowOptions.newBuilder()
+                        .setWorkflowId("shipment-ROUTE-001")
+                        .setTaskQueue("shipment-workflow-queue")
+                        .build());
+        workflow.executeShipment("ROUTE-001", null);
+
+        verify(mockedActivity, times(1)).getRoute();
+        WorkflowExecutionHistory history = workflowClient.fetchHistory("shipment-ROUTE-001");
+        assertTrue(history.getEvents().stream()
+                .filter(event -> event.getEventType() == EventType.EVENT_TYPE_ACTIVITY_TASK_SCHEDULED)
+                .noneMatch(event -> event.getActivityTaskScheduledEventAttributes().getActivityType().getName()
+                        .equals("GetRoute")));
+        // createShipment and the move stay on the activity queue
+        assertEquals(2, countEvents(history, EventType.EVENT_TYPE_ACTIVITY_TASK_SCHEDULED));
+    }
+
+    @Test
+    void testLocalActivityModeKeepsActivityTasksOutOfHistory() {
+        List<String> route = List.of("Mumbai", "Delhi", "Jaipur");
+        String shipmentHandle = "TEST-SHIPMENT-004";
+        Integer shipmentId = 321;
+
+        when(mockedActivity.getRoute()).thenReturn(RouteSnapshot.of(route));
+        when(mockedActivity.createShipment(shipmentHandle)).thenReturn(shipmentId);
+        doNothing().when(mockedActivity).moveShipment(anyInt(), anyString(), anyString());
+
+        String workflowId = startWithLocalActivities(shipmentHandle);
+
+        verify(mockedActivity, times(2)).moveShipment(eq(shipmentId), anyString(), anyString());
+        WorkflowExecutionHistory history = workflowClient.fetchHistory(workflowId);
+        assertEquals(0, countEvents(history, EventType.EVENT_TYPE_ACTIVITY_TASK_SCHEDULED));
+        // Route, create and two moves, plus the local-route-fetch version marker
+        assertEquals(5, countEvents(history, EventType.EVENT_TYPE_MARKER_RECORDED));
+    }
+
+    @Test
+    void testLocalActivityFallsBackToActivityQueueWhenLocalAttemptsFail() {
+        List<String> route = List.of("Mumbai", "Delhi");
+        String shipmentHandle = "TEST-SHIPMENT-005";
+        Integer shipmentId = 654;
+
+        when(mockedActivity.getRoute()).thenReturn(RouteSnapshot.of(route));
+        when(mockedActivity.createShipment(shipmentHandle)).thenReturn(shipmentId);
+        // Both local attempts fail; the regular activity succeeds.
+        doThrow(new RuntimeException("Network error"))
+                .doThrow(new RuntimeException("Network error"))
+                .doNothing()
+                .when(mockedActivity).moveShipment(shipmentId, "Mumbai", "Delhi");
+
+        String workflowId = startWithLocalActivities(shipmentHandle);
+
+        verify(mockedActivity, times(3)).moveShipment(shipmentId, "Mumbai", "Delhi");
+        WorkflowExecutionHistory history = workflowClient.fetchHistory(workflowId);
+        assertEquals(1, countEvents(history, EventType.EVENT_TYPE_ACTIVITY_TASK_SCHEDULED));
+    }
+
+    @Test
+    void testWaypointReservationsQueueShipmentsInsteadOfCompensating() {
+        List<String> route = List.of("Mumbai", "Delhi", "Jaipur");
+        // One shipment per waypoint, like the roulette service; the destination frees up on arrival
+        Map<String, Integer> occupants = new ConcurrentHashMap<>();
+        AtomicInteger nextId = new AtomicInteger();
+        when(mockedActivity.getRoute()).thenReturn(RouteSnapshot.of(route));
+        when(mockedActivity.createShipment(anyString())).thenAnswer(invocation -> {
+            int id = nextId.incrementAndGet();
+            if (occupants.putIfAbsent("Mumbai", id) != null) {
+                throw ApplicationFailure.newNonRetryableFailure("origin occupied", "DownstreamRejected");
+            }
+            return id;
+        });
+        doAnswer(invocation -> {
+            Integer id = invocation.getArgument(0);
+            String from = invocation.getArgument(1);
+            String to = invocation.getArgument(2);
+            if (occupants.putIfAbsent(to, id) != null) {
+                throw ApplicationFailure.newNonRetryableFailure("destination occupied", "DownstreamRejected");
+            }
+            occupants.remove(from, id);
+            if (to.equals("Jaipur")) {
+                occupants.remove(to, id);
+            }
+            return null;
+        }).when(mockedActivity).moveShipment(anyInt(), anyString(), anyString());
+
+        ShipmentWorkflowSettings settings = new ShipmentWorkflowSettings();
+        settings.setWaypointReservations(true);
+        workflowWorker.registerWorkflowImplementationTypes(WaypointWorkflowImpl.class);
+        registerActivities(mockedActivity, mockedCompensationActivity,
+                new WaypointActivityImpl(workflowClient, settings, new TaskQueueProperties(), null, null));
+        testEnv.start();
+
+        List<ShipmentWorkflow> shipments = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ShipmentWorkflow workflow = workflowClient.newWorkflowStub(ShipmentWorkflow.class,
+                    WorkflowOptions.newBuilder()
+                            .setWorkflowId("shipment-SLOT-" + i)
+                            .setTaskQueue("shipment-workflow-queue")
+                            .setMemo(Map.of(ShipmentWorkflow.SETTINGS_MEMO_KEY, settings))
+                            .build());
+            WorkflowClient.start(workflow::executeShipment, "SLOT-" + i, null);
+            shipments.add(workflow);
+        }
+        for (ShipmentWorkflow workflow : shipments) {
+            String workflowId = WorkflowStub.fromTyped(workflow).getExecution().getWorkflowId();
+            assertTrue(workflowClient.newUntypedWorkflowStub(workflowId).getResult(String.class)
+                    .contains("delivered successfully"));
+        }
+
+        // Every create and move went through first time: no collisions, no compensations
+        verify(mockedActivity, times(3)).createShipment(anyString());
+        verify(mockedActivity, times(6)).moveShipment(anyInt(), anyString(), anyString());
+        verify(mockedCompensationActivity, never()).compensateMove(anyInt(), anyString(), anyString());
+        for (String waypoint : route) {
+            WaypointState state = workflowClient.newWorkflowStub(WaypointWorkflow.class,
+                    WaypointWorkflow.workflowId(waypoint)).getState();
+            assertTrue(state.getHolders().isEmpty(), waypoint + " still held by " + state.getHolders());
+            assertTrue(state.getQueue().isEmpty());
+        }
+    }
+
+    @Test
+    void testFailedShipmentReleasesItsWaypointSlot() {
+        when(mockedActivity.getRoute()).thenReturn(RouteSnapshot.of(List.of("Mumbai", "Delhi", "Jaipur")));
+        when(mockedActivity.createShipment("SLOT-FAIL")).thenThrow(
+                ApplicationFailure.newNonRetryableFailure("Bad request", "DownstreamRejected", 400));
+        when(mockedActivity.createShipment("SLOT-NEXT")).thenReturn(2);
+        ShipmentWorkflowSettings settings = startWithReservations();
+
+        WorkflowStub failed = startWithReservations(settings, "SLOT-FAIL");
+        assertThrows(WorkflowFailedException.class, () -> failed.getResult(String.class));
+
+        // With one slot per waypoint the next shipment only gets Mumbai once the failed one gave it back
+        assertTrue(startWithReservations(settings, "SLOT-NEXT").getResult(String.class).contains("delivered successfully"));
+        WaypointState mumbai = workflowClient.newWorkflowStub(WaypointWorkflow.class,
+                WaypointWorkflow.workflowId("Mumbai")).getState();
+        assertTrue(mumbai.getHolders().isEmpty(), "Mumbai still held by " + mumbai.getHolders());
+    }
+
+    @Test
+    void testWaypointFreesTheSlotOfATerminatedShipment() throws Exception {
+        when(mockedActivity.getRoute()).thenReturn(RouteSnapshot.of(List.of("Mumbai", "Delhi", "Jaipur")));
+        CountDownLatch holdsMumbai = new CountDownLatch(1);
+        when(mockedActivity.createShipment("SLOT-STUCK")).thenAnswer(invocation -> {
+            holdsMumbai.countDown();
+            throw ApplicationFailure.newFailure("Service unavailable", "DownstreamUnavailable", 503);
+        });
+        when(mockedActivity.createShipment("SLOT-NEXT")).thenReturn(2);
+        ShipmentWorkflowSettings settings = startWithReservations();
+
+        WorkflowStub stuck = startWithReservations(settings, "SLOT-STUCK");
+        assertTrue(holdsMumbai.await(10, TimeUnit.SECONDS));
+        // No workflow code runs on terminate, so only the waypoint's holder check frees Mumbai
+        stuck.terminate("test");
+
+        assertTrue(startWithReservations(settings, "SLOT-NEXT").getResult(String.class).contains("delivered successfully"));
+    }
+
+    @Test
+    void testLookaheadWaitsForOccupiedWaypointInsteadOfFailingTheMove() {
+        when(mockedActivity.getRoute()).thenReturn(RouteSnapshot.of(List.of("Mumbai", "Delhi", "Jaipur")));
+        when(mockedActivity.createShipment("LOOKAHEAD-001")).thenReturn(5);
+        WaypointActivity waypointActivity = mock(WaypointActivity.class, withSettings().withoutAnnotations());
+        when(waypointActivity.getOccupancy("Delhi")).thenReturn(new WaypointOccupancy("Delhi", null));
+        // Jaipur is looked up while Mumbai -> Delhi runs, seen taken twice, then free
+        when(waypointActivity.getOccupancy("Jaipur"))
+                .thenReturn(new WaypointOccupancy("Jaipur", 9))
+                .thenReturn(new WaypointOccupancy("Jaipur", 9))
+                .thenReturn(new WaypointOccupancy("Jaipur", null));
+        registerActivities(mockedActivity, mockedCompensationActivity, waypointActivity);
+        testEnv.start();
+
+        ShipmentWorkflowSettings settings = new ShipmentWorkflowSettings();
+        settings.setNextHopLookahead(true);
+        ShipmentWorkflow workflow = workflowClient.newWorkflowStub(ShipmentWorkflow.class,
+                WorkflowOptions.newBuilder()
+                        .setTaskQueue("shipment-workflow-queue")
+                        .setMemo(Map.of(ShipmentWorkflow.SETTINGS_MEMO_KEY, settings))
+                        .build());
+
+        assertTrue(workflow.executeShipment("LOOKAHEAD-001", null).contains("delivered successfully"));
+        verify(waypointActivity, times(3)).getOccupancy("Jaipur");
+        verify(mockedActivity, times(1)).moveShipment(5, "Mumbai", "Delhi");
+        verify(mockedActivity, times(1)).moveShipment(5, "Delhi", "Jaipur");
+        verify(mockedCompensationActivity, never()).compensateMove(anyInt(), anyString(), anyString());
+    }
+
+    @Test
+    void testHopRunCompensatesFromTheFailedHop() {
+        List<String> route = List.of("Mumbai", "Delhi", "Jaipur", "Agra", "Bangalore");
+        when(mockedActivity.getRoute()).thenReturn(RouteSnapshot.of(route));
+        when(mockedActivity.createShipment("RUN-001")).thenReturn(7);
+        // Mumbai -> Delhi -> Jaipur went through, Jaipur -> Agra was rejected
+        when(mockedActivity.moveAlong(eq(7), anyList(), eq(0), eq(4)))
+                .thenThrow(ApplicationFailure.newNonRetryableFailure("Agra is occupied", "DownstreamRejected", 409, 2));
+        when(mockedActivity.moveAlong(eq(7), anyList(), eq(1), eq(4))).thenReturn(4);
+        registerActivities(mockedActivity, mockedCompensationActivity);
+        testEnv.start();
+
+        ShipmentWorkflow workflow = startWithHopRuns("RUN-001");
+
+        assertTrue(workflow.executeShipment("RUN-001", null).contains("delivered successfully"));
+        verify(mockedCompensationActivity, times(1)).compensateMove(7, "Jaipur", "Delhi");
+        verify(mockedActivity, never()).moveShipment(anyInt(), anyString(), anyString());
+        List<AuditEventType> types = workflow.getAuditTrail().stream().map(AuditEvent::getEventType).toList();
+        assertEquals(List.of(AuditEventType.CREATED, AuditEventType.MOVED, AuditEventType.MOVED,
+                AuditEventType.FAILED, AuditEventType.COMPENSATED, AuditEventType.MOVED, AuditEventType.MOVED,
+                AuditEventType.MOVED, AuditEventType.COMPLETED), types);
+        assertEquals(1, workflow.getProgress().getCompensations());
+    }
+
+    @Test
+    void testRetriedHopRunResumesWhereTheShipmentIs() {
+        ShipmentClient client = mock(ShipmentClient.class);
+        RouteProvider routeProvider = mock(RouteProvider.class);
+        when(routeProvider.getRoute()).thenReturn(RouteSnapshot.of(List.of("Mumbai", "Delhi", "Jaipur", "Bangalore")));
+        when(client.createShipment(any())).thenReturn(7);
+        MoveRequest delhiToJaipur = MoveRequest.builder().shipmentId(7).from("Delhi").to("Jaipur").build();
+        doThrow(new DownstreamException("Failed to move shipment: 503", 503, null, null))
+                .doNothing()
+                .when(client).moveShipment(delhiToJaipur);
+        when(client.getShipmentPosition(7)).thenReturn(1);
+        registerActivities(new ShipmentActivityImpl(client, routeProvider, new ActivityMetrics(meterRegistry)),
+                mockedCompensationActivity);
+        testEnv.start();
+
+        ShipmentWorkflow workflow = startWithHopRuns("RUN-002");
+
+        assertTrue(workflow.executeShipment("RUN-002", null).contains("delivered successfully"));
+        verify(client, times(1)).moveShipment(MoveRequest.builder().shipmentId(7).from("Mumbai").to("Delhi").build());
+        verify(client, times(2)).moveShipment(delhiToJaipur);
+        verify(client, times(1)).moveShipment(MoveRequest.builder().shipmentId(7).from("Jaipur").to("Bangalore").build());
+        verify(client, times(1)).getShipmentPosition(7);
+        verify(mockedCompensationActivity, never()).compensateMove(anyInt(), anyString(), anyString());
+        assertEquals(5, workflow.getAuditTrail().size());
+    }
+
+    @Test
+    void testCompensationsRunOnTheirOwnQueue() {
+        when(mockedActivity.getRoute()).thenReturn(RouteSnapshot.of(List.of("Mumbai", "Delhi", "Jaipur")));
+        when(mockedActivity.createShipment("ROLLBACK-001")).thenReturn(9);
+        doThrow(ApplicationFailure.newNonRetryableFailure("Jaipur is occupied", "DownstreamRejected", 409))
+                .doNothing()
+                .when(mockedActivity).moveShipment(9, "Delhi", "Jaipur");
+        // Only the compensation worker can run compensateMove
+        registerActivities(mockedActivity);
+        testEnv.newWorker("shipment-compensation-queue").registerActivitiesImplementations(mockedCompensationActivity);
+        testEnv.start();
+
+        ShipmentWorkflowSettings settings = new ShipmentWorkflowSettings();
+        settings.setCompensationTaskQueue("shipment-compensation-queue");
+        ShipmentWorkflow workflow = workflowClient.newWorkflowStub(ShipmentWorkflow.class,
+                WorkflowOptions.newBuilder()
+                        .setTaskQueue("shipment-workflow-queue")
+                        .setMemo(Map.of(ShipmentWorkflow.SETTINGS_MEMO_KEY, settings))
+                        .build());
+
+        assertTrue(workflow.executeShipment("ROLLBACK-001", null).contains("delivered successfully"));
+        verify(mockedCompensationActivity, times(1)).compensateMove(9, "Delhi", "Mumbai");
+    }
+
+    private ShipmentWorkflowSettings startWithReservations() {
+        ShipmentWorkflowSettings settings = new ShipmentWorkflowSettings();
+        settings.setWaypointReservations(true);
+        settings.setWaypointHolderCheckInterval(Duration.ofSeconds(30));
+        workflowWorker.registerWorkflowImplementationTypes(WaypointWorkflowImpl.class);
+        registerActivities(mockedActivity, mockedCompensationActivity,
+                new WaypointActivityImpl(workflowClient, settings, new TaskQueueProperties(), null, null));
+        testEnv.start();
+        return settings;
+    }
+
+    private WorkflowStub startWithReservations(ShipmentWorkflowSettings settings, String shipmentHandle) {
+        ShipmentWorkflow workflow = workflowClient.newWorkflowStub(ShipmentWorkflow.class,
+                WorkflowOptions.newBuilder()
+                        .setWorkflowId("shipment-" + shipmentHandle)
+                        .setTaskQueue("shipment-workflow-queue")
+                        .setMemo(Map.of(ShipmentWorkflow.SETTINGS_MEMO_KEY, settings))
+                        .build());
+        WorkflowClient.start(workflow::executeShipment, shipmentHandle, null);
+        return WorkflowStub.fromTyped(workflow);
+    }
+
+    /**
+     * Local activities run on the workflow worker and getRoute always runs as one, so the
+     * shipment activity is registered there as well as on the activity queue.
+     */
+    private void registerActivities(ShipmentActivity shipmentActivity, Object... others) {
+        workflowWorker.registerActivitiesImplementations(shipmentActivity);
+        activityWorker.registerActivitiesImplementations(shipmentActivity);
+        activityWorker.registerActivitiesImplementations(others);
+    }
+
+    private ShipmentWorkflow startWithHopRuns(String shipmentHandle) {
+        ShipmentWorkflowSettings settings = new ShipmentWorkflowSettings();
+        settings.setMaxHopsPerActivity(8);
+        return workflowClient.newWorkflowStub(ShipmentWorkflow.class,
+                WorkflowOptions.newBuilder()
+                        .setWorkflowId("shipment-" + shipmentHandle)
+                        .setTaskQueue("shipment-workflow-queue")
+                        .setMemo(Map.of(ShipmentWorkflow.SETTINGS_MEMO_KEY, settings))
+                        .build());
+    }
+
+    private String startWithLocalActivities(String shipmentHandle) {
+        registerActivities(mockedActivity, mockedCompensationActivity);
+        testEnv.start();
+
+        ShipmentWorkflowSettings settings = new ShipmentWorkflowSettings();
+        settings.setLocalActivities(true);
+        settings.setLocalActivityTimeout(Duration.ofSeconds(2));
+        String workflowId = "shipment-" + shipmentHandle;
+        ShipmentWorkflow workflow = workflowClient.newWorkflowStub(
+                ShipmentWorkflow.class,
+                WorkflowOptions.newBuilder()
+                        .setWorkflowId(workflowId)
+                        .setTaskQueue("shipment-workflow-queue")
+                        .setMemo(Map.of(ShipmentWorkflow.SETTINGS_MEMO_KEY, settings))
+                        .build()
+        );
+        assertTrue(workflow.executeShipment(shipmentHandle, null).contains("delivered successfully"));
+        return workflowId;
+    }
+
+    private static long countEvents(WorkflowExecutionHistory history, EventType type) {
+        return history.getEvents().stream().filter(event -> event.getEventType() == type).count();
     }
 }
@@ -0,0 +1,83 @@
+package com.example.shipmentTemporal.clients;
+
+import com.example.shipmentTemporal.models.CreateShipmentRequest;
+import com.example.shipmentTemporal.models.MoveRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReactiveShipmentClientTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ReactiveShipmentClient clientAnswering(HttpStatus status, String body, String retryAfter) {
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    ClientResponse.Builder response = ClientResponse.create(status)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(body);
+                    if (retryAfter != null) {
+                        response.header(HttpHeaders.RETRY_AFTER, retryAfter);
+                    }
+                    return Mono.just(response.build());
+                })
+                .build();
+        ReactiveShipmentClient client = new ReactiveShipmentClient();
+        ReflectionTestUtils.setField(client, "rouletteWebClient", webClient);
+        ReflectionTestUtils.setField(client, "baseUrl", "http://roulette");
+        ReflectionTestUtils.setField(client, "meterRegistry", meterRegistry);
+        return client;
+    }
+
+    @Test
+    void testCreateShipmentReturnsId() {
+        ReactiveShipmentClient client = clientAnswering(HttpStatus.CREATED,
+                "{\"success\": true, \"shipment\": {\"id\": 42, \"status\": \"IN_TRANSIT\", \"current_idx\": 0}}", null);
+
+        Integer id = client.createShipment(CreateShipmentRequest.builder().handle("TEST").name("Shipment-TEST").build())
+                .block();
+
+        assertEquals(42, id);
+        assertEquals(1, meterRegistry.get("roulette.client.requests")
+                .tag("operation", "create").tag("status", "200").timer().count());
+    }
+
+    @Test
+    void testServiceUnavailableCarriesRetryAfter() {
+        ReactiveShipmentClient client = clientAnswering(HttpStatus.SERVICE_UNAVAILABLE,
+                "{\"success\": false, \"error\": \"Simulated transient failure. Please retry.\"}", "3");
+
+        Mono<Void> move = client.moveShipment(MoveRequest.builder().shipmentId(1).from("Mumbai").to("Delhi").build());
+        DownstreamException error = assertThrows(DownstreamException.class, move::block);
+
+        assertEquals(503, error.getStatusCode());
+        assertEquals(Duration.ofSeconds(3), error.getRetryAfter());
+        assertTrue(error.isRetryable());
+        assertEquals(1, meterRegistry.get("roulette.client.requests")
+                .tag("operation", "move").tag("status", "503").timer().count());
+    }
+
+    @Test
+    void testConflictOnMoveIsNotRetryable() {
+        ReactiveShipmentClient client = clientAnswering(HttpStatus.CONFLICT,
+                "{\"success\": false, \"error\": \"destination occupied\"}", null);
+
+        Mono<Void> move = client.moveShipment(MoveRequest.builder().shipmentId(1).from("Mumbai").to("Delhi").build());
+        DownstreamException error = assertThrows(DownstreamException.class, move::block);
+
+        assertTrue(error.isConflict());
+        assertFalse(error.isRetryable());
+        assertTrue(error.getMessage().contains("destination occupied"));
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.shipmentTemporal.clients;
+
+import com.example.shipmentTemporal.models.RouteSnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RouteProviderTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private ShipmentClient shipmentClient;
+    private MeterRegistry meterRegistry;
+    private RouteProvider routeProvider;
+
+    @BeforeEach
+    void setUp() {
+        shipmentClient = mock(ShipmentClient.class);
+        meterRegistry = new SimpleMeterRegistry();
+        routeProvider = new RouteProvider(shipmentClient, meterRegistry,
+                Duration.ofMinutes(5), Duration.ZERO, clock::get);
+    }
+
+    @Test
+    void testRouteIsServedFromCacheUntilTtlExpires() {
+        when(shipmentClient.getRoute())
+                .thenReturn(List.of("Mumbai", "Delhi"))
+                .thenReturn(List.of("Mumbai", "Jaipur"));
+
+        RouteSnapshot first = routeProvider.getRoute();
+        RouteSnapshot second = routeProvider.getRoute();
+
+        assertSame(first, second);
+        verify(shipmentClient, times(1)).getRoute();
+        assertEquals(1.0, meterRegistry.get("roulette.route.cache.requests").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("roulette.route.cache.requests").tag("result", "miss").counter().count());
+
+        clock.addAndGet(Duration.ofMinutes(5).toNanos());
+        RouteSnapshot reloaded = routeProvider.getRoute();
+
+        assertEquals(List.of("Mumbai", "Jaipur"), reloaded.getCities());
+        assertNotEquals(first.getVersion(), reloaded.getVersion());
+        verify(shipmentClient, times(2)).getRoute();
+    }
+
+    @Test
+    void testConcurrentMissesShareOneLoad() throws Exception {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        when(shipmentClient.getRoute()).thenAnswer(invocation -> {
+            loadStarted.countDown();
+            releaseLoad.await(5, TimeUnit.SECONDS);
+            return List.of("Mumbai", "Delhi");
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<RouteSnapshot>> results = new ArrayList<>();
+            results.add(executor.submit(routeProvider::getRoute));
+            assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 7; i++) {
+                results.add(executor.submit(routeProvider::getRoute));
+            }
+            releaseLoad.countDown();
+
+            for (Future<RouteSnapshot> result : results) {
+                assertEquals(List.of("Mumbai", "Delhi"), result.get(5, TimeUnit.SECONDS).getCities());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(shipmentClient, times(1)).getRoute();
+    }
+
+    @Test
+    void testFailedLoadIsNotCached() {
+        when(shipmentClient.getRoute())
+                .thenThrow(new RuntimeException("Failed to fetch route: connection refused"))
+                .thenReturn(List.of("Mumbai", "Delhi"));
+
+        RuntimeException error = assertThrows(RuntimeException.class, routeProvider::getRoute);
+        assertTrue(error.getMessage().contains("connection refused"));
+
+        assertEquals(List.of("Mumbai", "Delhi"), routeProvider.getRoute().getCities());
+        assertEquals(1.0, meterRegistry.get("roulette.route.cache.load.failures").counter().count());
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.shipmentTemporal.clients;
+
+import com.example.shipmentTemporal.models.CreateShipmentRequest;
+import com.example.shipmentTemporal.models.MoveRequest;
+import com.example.shipmentTemporal.models.WaypointOccupancy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+
+class ShipmentClientTest {
+
+    private MockRestServiceServer server;
+    private ShipmentClient shipmentClient;
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        shipmentClient = new ShipmentClient();
+        ReflectionTestUtils.setField(shipmentClient, "restTemplate", restTemplate);
+        ReflectionTestUtils.setField(shipmentClient, "baseUrl", "http://roulette");
+        ReflectionTestUtils.setField(shipmentClient, "meterRegistry", meterRegistry);
+    }
+
+    @Test
+    void testServiceUnavailableCarriesRetryAfter() {
+        server.expect(requestTo("http://roulette/move"))
+                .andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header("Retry-After", "3")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body("{\"success\": false, \"error\": \"Simulated transient failure. Please retry.\"}"));
+
+        DownstreamException error = assertThrows(DownstreamException.class, () -> shipmentClient.moveShipment(
+                MoveRequest.builder().shipmentId(1).from("Mumbai").to("Delhi").build()));
+
+        assertEquals(503, error.getStatusCode());
+        assertEquals(Duration.ofSeconds(3), error.getRetryAfter());
+        assertTrue(error.isRetryable());
+        assertEquals(1, meterRegistry.get("roulette.client.requests")
+                .tag("operation", "move").tag("status", "503").timer().count());
+    }
+
+    @Test
+    void testConflictOnCreateIsNotRetryable() {
+        server.expect(requestTo("http://roulette/shipments"))
+                .andRespond(withStatus(HttpStatus.CONFLICT)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body("{\"success\": false, \"error\": \"origin occupied\"}"));
+
+        DownstreamException error = assertThrows(DownstreamException.class, () -> shipmentClient.createShipment(
+                CreateShipmentRequest.builder().handle("TEST").name("Shipment-TEST").build()));
+
+        assertEquals(409, error.getStatusCode());
+        assertTrue(error.isConflict());
+        assertFalse(error.isRetryable());
+        assertTrue(error.getMessage().contains("origin occupied"));
+    }
+
+    @Test
+    void testShipmentPosition() {
+        server.expect(requestTo("http://roulette/shipments/7"))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body("{\"success\": true, \"shipment\": {\"id\": 7, \"handle\": \"TEST\", "
+                                + "\"status\": \"in_transit\", \"current_idx\": 3}}"));
+
+        assertEquals(3, shipmentClient.getShipmentPosition(7));
+    }
+
+    @Test
+    void testWaypointOccupancy() {
+        server.expect(requestTo("http://roulette/waypoints/city/Delhi"))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body("{\"success\": true, \"waypoint\": {\"id\": 2, \"idx\": 1, \"city\": \"Delhi\", "
+                                + "\"handle\": \"wp-1\", \"capacity\": 1, \"occupied_by_shipment_id\": 7}}"));
+
+        WaypointOccupancy occupancy = shipmentClient.getWaypointOccupancy("Delhi");
+
+        assertEquals(7, occupancy.getOccupiedByShipmentId());
+        assertFalse(occupancy.isAvailableFor(3));
+        assertTrue(occupancy.isAvailableFor(7));
+    }
+
+    @Test
+    void testRetryAfterParsing() {
+        assertEquals(Duration.ofSeconds(2), DownstreamException.parseRetryAfter("2"));
+        assertEquals(Duration.ofMinutes(1), DownstreamException.parseRetryAfter("3600"));
+        assertEquals(Duration.ZERO, DownstreamException.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT"));
+        assertNull(DownstreamException.parseRetryAfter("soon"));
+        assertNull(DownstreamException.parseRetryAfter(null));
+    }
+}
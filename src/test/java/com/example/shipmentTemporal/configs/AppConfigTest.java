@@ -0,0 +1,30 @@
+package com.example.shipmentTemporal.configs;
+
+import com.example.shipmentTemporal.models.ShipmentWorkflowSettings;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AppConfigTest {
+
+    @Test
+    void testLocalActivityTimeoutMustOutlastTheRouletteCall() {
+        RouletteHttpProperties properties = new RouletteHttpProperties();
+        ShipmentWorkflowSettings settings = new ShipmentWorkflowSettings();
+        settings.setLocalActivities(true);
+
+        AppConfig.checkLocalActivityTimeout(settings, properties);
+
+        settings.setLocalActivityTimeout(properties.getReadTimeout());
+        assertThrows(IllegalStateException.class, () -> AppConfig.checkLocalActivityTimeout(settings, properties));
+
+        // Only matters when the workflow actually runs local activities
+        settings.setLocalActivities(false);
+        AppConfig.checkLocalActivityTimeout(settings, properties);
+        settings.setLocalActivities(true);
+        properties.setReadTimeout(Duration.ofSeconds(3));
+        AppConfig.checkLocalActivityTimeout(settings, properties);
+    }
+}
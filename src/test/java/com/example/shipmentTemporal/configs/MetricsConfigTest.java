@@ -0,0 +1,38 @@
+package com.example.shipmentTemporal.configs;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.boot.micrometer.metrics.autoconfigure.MetricsProperties;
+import org.springframework.boot.micrometer.metrics.autoconfigure.PropertiesMeterFilter;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsConfigTest {
+
+    @Test
+    void testTemporalLatencyHistogramsAreEnabled() throws IOException {
+        List<PropertySource<?>> sources = new YamlPropertySourceLoader()
+                .load("application.yml", new ClassPathResource("application.yml"));
+        MetricsProperties properties = new Binder(ConfigurationPropertySources.from(sources))
+                .bindOrCreate("management.metrics", MetricsProperties.class);
+        PropertiesMeterFilter filter = new PropertiesMeterFilter(properties);
+
+        for (String name : List.of("temporal_activity_execution_latency", "temporal_activity_schedule_to_start_latency",
+                "temporal_workflow_task_execution_latency", "temporal_workflow_task_schedule_to_start_latency",
+                "temporal_workflow_endtoend_latency", "shipment.hop.latency")) {
+            Meter.Id id = new Meter.Id(name, Tags.empty(), null, null, Meter.Type.TIMER);
+            DistributionStatisticConfig config = filter.configure(id, DistributionStatisticConfig.NONE);
+            assertEquals(Boolean.TRUE, config.isPercentileHistogram(), name);
+        }
+    }
+}
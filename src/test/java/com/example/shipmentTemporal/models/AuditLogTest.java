@@ -0,0 +1,77 @@
+package com.example.shipmentTemporal.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditLogTest {
+
+    private static final List<String> ROUTE = List.of("Mumbai", "Delhi", "Jaipur", "Bangalore");
+    private static final String REASON = "Failed to move shipment: 409 destination occupied";
+
+    @Test
+    void testRendersEventsAgainstRoute() {
+        AuditLog log = new AuditLog("TEST-SHIPMENT-001", 0);
+        log.created(1_000);
+        log.moved(0, 1, 2_000);
+        log.failed(1, 2, REASON, 3_000);
+        log.compensated(1, 0, "Compensated last move", 4_000);
+
+        List<AuditEvent> events = log.toEvents(ROUTE);
+
+        assertEquals(4, events.size());
+        assertEquals("Shipment 'TEST-SHIPMENT-001' created", events.get(0).getMessage());
+        assertEquals("Moved from Mumbai to Delhi", events.get(1).getMessage());
+        assertEquals(AuditEventType.FAILED, events.get(2).getEventType());
+        assertEquals("Delhi", events.get(2).getFrom());
+        assertEquals("Jaipur", events.get(2).getTo());
+        assertEquals(REASON, events.get(2).getReason());
+        assertEquals("Mumbai", events.get(3).getTo());
+        assertEquals(Instant.ofEpochMilli(4_000), events.get(3).getTimestamp());
+    }
+
+    @Test
+    void testRepeatedCyclesAreRolledUp() {
+        AuditLog log = new AuditLog("TEST-SHIPMENT-002", 20);
+        log.created(0);
+        for (int cycle = 0; cycle < 1_000; cycle++) {
+            appendFailureCycle(log, cycle);
+        }
+
+        List<AuditEvent> events = log.toEvents(ROUTE);
+
+        assertTrue(events.size() <= 21, "trail should stay bounded but had " + events.size());
+        assertEquals(AuditEventType.CREATED, events.get(0).getEventType());
+        assertEquals(AuditEventType.ROLLED_UP, events.get(1).getEventType());
+        assertEquals(3_000, log.rolledUpCount() + log.size() - 1);
+        assertEquals(AuditEventType.COMPENSATED, events.get(events.size() - 1).getEventType());
+    }
+
+    @Test
+    void testRollupKeepsTheTrailBoundedButCountsEveryEvent() {
+        AuditLog unbounded = new AuditLog("TEST-SHIPMENT-003", 0);
+        AuditLog bounded = new AuditLog("TEST-SHIPMENT-003", 200);
+        unbounded.created(0);
+        bounded.created(0);
+        for (int cycle = 0; cycle < 500; cycle++) {
+            appendFailureCycle(unbounded, cycle);
+            appendFailureCycle(bounded, cycle);
+        }
+
+        assertEquals(1_501, unbounded.size());
+        assertEquals(0, unbounded.rolledUpCount());
+        assertTrue(bounded.size() <= 201, "trail should stay bounded but had " + bounded.size());
+        assertEquals(1_500, bounded.rolledUpCount() + bounded.size() - 1);
+        assertEquals(unbounded.appendedCount(), bounded.appendedCount());
+    }
+
+    private static void appendFailureCycle(AuditLog log, int cycle) {
+        long timestamp = cycle * 10L;
+        log.moved(0, 1, timestamp + 1);
+        log.failed(1, 2, REASON, timestamp + 2);
+        log.compensated(1, 0, "Compensated last move", timestamp + 3);
+    }
+}
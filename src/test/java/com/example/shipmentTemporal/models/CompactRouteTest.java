@@ -0,0 +1,49 @@
+package com.example.shipmentTemporal.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactRouteTest {
+
+    private static final List<String> CITIES = List.of("Delhi", "Jaipur", "Udaipur", "Ahmedabad", "Mumbai");
+
+    @Test
+    void testReadsLikeTheSnapshot() {
+        RouteSnapshot snapshot = RouteSnapshot.of(CITIES);
+
+        CompactRoute route = CompactRoute.of(snapshot);
+
+        assertEquals(CITIES, route);
+        assertEquals(CITIES.hashCode(), route.hashCode());
+        assertEquals("Udaipur", route.get(2));
+        assertEquals(snapshot.getVersion(), route.version());
+        assertEquals(snapshot, route.toSnapshot());
+        assertThrows(IndexOutOfBoundsException.class, () -> route.get(5));
+        assertThrows(UnsupportedOperationException.class, () -> route.set(0, "Agra"));
+    }
+
+    @Test
+    void testWorkflowsOnTheSameRouteShareOneInstance() {
+        // Each workflow deserializes its own copy of the snapshot
+        CompactRoute first = CompactRoute.of(RouteSnapshot.of(new ArrayList<>(CITIES)));
+        CompactRoute second = CompactRoute.of(RouteSnapshot.of(new ArrayList<>(CITIES)));
+
+        assertSame(first, second);
+        assertNotSame(first, CompactRoute.of(RouteSnapshot.of(CITIES.subList(0, 3))));
+    }
+
+    @Test
+    void testSnapshotWithoutVersionIsNotShared() {
+        RouteSnapshot snapshot = RouteSnapshot.builder().cities(CITIES).build();
+
+        CompactRoute route = CompactRoute.of(snapshot);
+
+        assertNotSame(route, CompactRoute.of(snapshot));
+        assertEquals(route, CompactRoute.of(snapshot));
+        assertNull(route.version());
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.shipmentTemporal.service;
+
+import com.example.shipmentTemporal.configs.TaskQueueProperties;
+import com.example.shipmentTemporal.models.AuditEvent;
+import com.example.shipmentTemporal.models.AuditEventType;
+import com.example.shipmentTemporal.models.AuditTrailResponse;
+import com.example.shipmentTemporal.models.BatchShipmentRequest;
+import com.example.shipmentTemporal.models.BatchShipmentResponse;
+import com.example.shipmentTemporal.models.BatchStartStatus;
+import com.example.shipmentTemporal.models.RouteSnapshot;
+import com.example.shipmentTemporal.models.ShipmentRequest;
+import com.example.shipmentTemporal.models.ShipmentResponse;
+import com.example.shipmentTemporal.models.ShipmentSearchFilter;
+import com.example.shipmentTemporal.models.ShipmentStatus;
+import com.example.shipmentTemporal.models.ShipmentWorkflowSettings;
+import com.example.shipmentTemporal.models.StartMilestone;
+import com.example.shipmentTemporal.service.audit.AuditEventStream;
+import com.example.shipmentTemporal.service.audit.InMemoryAuditProjectionStore;
+import com.example.shipmentTemporal.service.temporal.activities.AuditProjectionActivityImpl;
+import com.example.shipmentTemporal.service.temporal.activities.ShipmentActivity;
+import com.example.shipmentTemporal.service.temporal.activities.ShipmentCompensationActivity;
+import com.example.shipmentTemporal.service.temporal.workflows.ShipmentSearchAttributes;
+import com.example.shipmentTemporal.service.temporal.workflows.ShipmentWorkflowImpl;
+import io.temporal.common.SearchAttributes;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.worker.Worker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ShipmentServiceTest {
+
+    private TestWorkflowEnvironment testEnv;
+    private ExecutorService executor;
+    private ShipmentWorkflowSettings settings;
+    private InMemoryAuditProjectionStore auditProjectionStore;
+    private ShipmentService shipmentService;
+
+    @BeforeEach
+    void setUp() {
+        testEnv = TestWorkflowEnvironment.newInstance();
+        executor = Executors.newFixedThreadPool(4);
+        settings = new ShipmentWorkflowSettings();
+        auditProjectionStore = new InMemoryAuditProjectionStore(100, Duration.ZERO);
+        shipmentService = new ShipmentService(testEnv.getWorkflowClient(), settings,
+                new TaskQueueProperties(), auditProjectionStore, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        testEnv.close();
+    }
+
+    @Test
+    void testBatchStartReportsPerHandleResults() {
+        // Workers are never started, so every started workflow stays running.
+        BatchShipmentResponse first = shipmentService.startShipments(
+                new BatchShipmentRequest(Arrays.asList("BATCH-001", "BATCH-002")));
+
+        assertTrue(first.isSuccess());
+        assertEquals(2, first.getStarted());
+
+        BatchShipmentResponse second = shipmentService.startShipments(
+                new BatchShipmentRequest(Arrays.asList("BATCH-001", "BATCH-003", "")));
+
+        assertFalse(second.isSuccess());
+        assertEquals(1, second.getStarted());
+        assertEquals(1, second.getAlreadyRunning());
+        assertEquals(1, second.getFailed());
+
+        assertEquals(BatchStartStatus.ALREADY_RUNNING, second.getResults().get(0).getStatus());
+        assertEquals("shipment-BATCH-001", second.getResults().get(0).getWorkflowId());
+        assertEquals(BatchStartStatus.STARTED, second.getResults().get(1).getStatus());
+        assertEquals(BatchStartStatus.FAILED, second.getResults().get(2).getStatus());
+    }
+
+    @Test
+    void testResultLongPollReturnsCurrentHopWhileShipmentIsMoving() throws Exception {
+        Worker workflowWorker = testEnv.newWorker("shipment-workflow-queue");
+        workflowWorker.registerWorkflowImplementationTypes(ShipmentWorkflowImpl.class);
+        Worker activityWorker = testEnv.newWorker("shipment-activity-queue");
+
+        CountDownLatch releaseMove = new CountDownLatch(1);
+        ShipmentActivity activity = mock(ShipmentActivity.class, withSettings().withoutAnnotations());
+        when(activity.getRoute()).thenReturn(RouteSnapshot.of(List.of("Mumbai", "Delhi")));
+        when(activity.createShipment("POLL-001")).thenReturn(7);
+        doAnswer(invocation -> releaseMove.await(10, TimeUnit.SECONDS))
+                .when(activity).moveShipment(anyInt(), anyString(), anyString());
+        // getRoute runs as a local activity on the workflow worker
+        workflowWorker.registerActivitiesImplementations(activity);
+        activityWorker.registerActivitiesImplementations(activity);
+        testEnv.start();
+
+        ShipmentResponse started = shipmentService.startShipment(new ShipmentRequest("POLL-001"));
+
+        ShipmentResponse running = shipmentService.getWorkflowResult(started.getWorkflowId(), 1)
+                .get(10, TimeUnit.SECONDS);
+        assertEquals(ShipmentStatus.IN_TRANSIT, running.getStatus());
+        assertEquals(0, running.getCurrentIndex());
+        assertEquals("Mumbai", running.getCurrentCity());
+
+        releaseMove.countDown();
+        ShipmentResponse delivered = shipmentService.getWorkflowResult(started.getWorkflowId(), 10)
+                .get(15, TimeUnit.SECONDS);
+        assertEquals(ShipmentStatus.DELIVERED, delivered.getStatus());
+        assertTrue(delivered.getMessage().contains("delivered successfully"));
+    }
+
+    @Test
+    void testAuditTrailIsPagedFromProjectionWithQueryFallback() throws Exception {
+        settings.setAuditProjection(true);
+        Worker workflowWorker = testEnv.newWorker("shipment-workflow-queue");
+        workflowWorker.registerWorkflowImplementationTypes(ShipmentWorkflowImpl.class);
+        workflowWorker.registerActivitiesImplementations(new AuditProjectionActivityImpl(auditProjectionStore,
+                new AuditEventStream(auditProjectionStore)));
+        Worker activityWorker = testEnv.newWorker("shipment-activity-queue");
+        ShipmentActivity activity = mock(ShipmentActivity.class, withSettings().withoutAnnotations());
+        when(activity.getRoute()).thenReturn(RouteSnapshot.of(List.of("Mumbai", "Delhi", "Jaipur", "Bangalore")));
+        when(activity.createShipment(anyString())).thenReturn(7);
+        // getRoute runs as a local activity on the workflow worker
+        workflowWorker.registerActivitiesImplementations(activity);
+        activityWorker.registerActivitiesImplementations(activity);
+        testEnv.start();
+
+        String workflowId = shipmentService.startShipment(new ShipmentRequest("AUDIT-001")).getWorkflowId();
+        assertEquals(ShipmentStatus.DELIVERED,
+                shipmentService.getWorkflowResult(workflowId, 10).get(15, TimeUnit.SECONDS).getStatus());
+
+        AuditTrailResponse projected = shipmentService.getAuditTrail(workflowId, 1, 2);
+        assertTrue(projected.isSuccess());
+        assertEquals("projection", projected.getSource());
+        assertEquals(5, projected.getTotal());
+        assertEquals(List.of("Moved from Mumbai to Delhi", "Moved from Delhi to Jaipur"),
+                projected.getAuditTrail().stream().map(AuditEvent::getMessage).toList());
+
+        // A projection lost with the worker's memory is rebuilt from the workflow query.
+        AuditTrailResponse queried = new ShipmentService(testEnv.getWorkflowClient(), settings,
+                new TaskQueueProperties(), new InMemoryAuditProjectionStore(100, Duration.ZERO), executor)
+                .getAuditTrail(workflowId, 3, 10);
+        assertEquals("workflow", queried.getSource());
+        assertEquals(5, queried.getTotal());
+        assertEquals(2, queried.getAuditTrail().size());
+        assertEquals(AuditEventType.COMPLETED, queried.getAuditTrail().get(1).getEventType());
+    }
+
+    @Test
+    void testWorkflowKeepsSearchAttributesForListing() throws Exception {
+        settings.setSearchAttributes(true);
+        ShipmentSearchAttributes.ALL.forEach(key -> testEnv.registerSearchAttribute(key.getName(),
+                key.getValueType()));
+        Worker workflowWorker = testEnv.newWorker("shipment-workflow-queue");
+        workflowWorker.registerWorkflowImplementationTypes(ShipmentWorkflowImpl.class);
+        Worker activityWorker = testEnv.newWorker("shipment-activity-queue");
+        ShipmentActivity activity = mock(ShipmentActivity.class, withSettings().withoutAnnotations());
+        when(activity.getRoute()).thenReturn(RouteSnapshot.of(List.of("Mumbai", "Delhi", "Jaipur")));
+        when(activity.createShipment(anyString())).thenReturn(7);
+        IllegalStateException occupied = new IllegalStateException("destination occupied");
+        doThrow(occupied).doThrow(occupied).doThrow(occupied).doNothing()
+                .when(activity).moveShipment(7, "Delhi", "Jaipur");
+        // getRoute runs as a local activity on the workflow worker
+        workflowWorker.registerActivitiesImplementations(activity);
+        activityWorker.registerActivitiesImplementations(activity, mock(ShipmentCompensationActivity.class,
+                withSettings().withoutAnnotations()));
+        testEnv.start();
+
+        String workflowId = shipmentService.startShipment(new ShipmentRequest("LIST-001")).getWorkflowId();
+        assertEquals(ShipmentStatus.DELIVERED,
+                shipmentService.getWorkflowResult(workflowId, 60).get(90, TimeUnit.SECONDS).getStatus());
+
+        SearchAttributes attributes = testEnv.getWorkflowClient().newUntypedWorkflowStub(workflowId)
+                .describe().getTypedSearchAttributes();
+        assertEquals("DELIVERED", attributes.get(ShipmentSearchAttributes.STATUS));
+        assertEquals("Jaipur", attributes.get(ShipmentSearchAttributes.CITY));
+        assertEquals(2L, attributes.get(ShipmentSearchAttributes.HOP_INDEX));
+        assertEquals(0L, attributes.get(ShipmentSearchAttributes.RETRY_CYCLE));
+        assertEquals(1L, attributes.get(ShipmentSearchAttributes.COMPENSATIONS));
+
+        assertEquals("WorkflowType = 'ShipmentWorkflow' AND ExecutionStatus = 'Running' AND ShipmentStatus = 'BACKING_OFF'"
+                        + " AND ShipmentCity = 'Delhi' AND ShipmentRetryCycle >= 3",
+                ShipmentService.visibilityQuery(ShipmentSearchFilter.builder()
+                        .status(ShipmentStatus.BACKING_OFF).city("Delhi").minRetryCycle(3).running(true).build()));
+    }
+
+    @Test
+    void testStartAndWaitReturnsShipmentIdAndFirstHop() throws Exception {
+        Worker workflowWorker = testEnv.newWorker("shipment-workflow-queue");
+        workflowWorker.registerWorkflowImplementationTypes(ShipmentWorkflowImpl.class);
+        Worker activityWorker = testEnv.newWorker("shipment-activity-queue");
+
+        CountDownLatch releaseSecondHop = new CountDownLatch(1);
+        ShipmentActivity activity = mock(ShipmentActivity.class, withSettings().withoutAnnotations());
+        when(activity.getRoute()).thenReturn(RouteSnapshot.of(List.of("Mumbai", "Delhi", "Jaipur")));
+        when(activity.createShipment(anyString())).thenReturn(7);
+        doAnswer(invocation -> releaseSecondHop.await(10, TimeUnit.SECONDS))
+                .when(activity).moveShipment(7, "Delhi", "Jaipur");
+        // getRoute runs as a local activity on the workflow worker
+        workflowWorker.registerActivitiesImplementations(activity);
+        activityWorker.registerActivitiesImplementations(activity);
+        testEnv.start();
+
+        ShipmentResponse created = shipmentService.startShipmentAndWait(new ShipmentRequest("SYNC-001"),
+                StartMilestone.CREATED, 10).get(15, TimeUnit.SECONDS);
+        assertTrue(created.isSuccess(), created.getMessage());
+        assertEquals(7, created.getShipmentId());
+        assertEquals(List.of("Mumbai", "Delhi", "Jaipur"), created.getRoute());
+
+        // Starting again attaches to the running shipment instead of failing
+        ShipmentResponse firstHop = shipmentService.startShipmentAndWait(new ShipmentRequest("SYNC-001"),
+                StartMilestone.FIRST_HOP, 10).get(15, TimeUnit.SECONDS);
+        assertTrue(firstHop.isSuccess(), firstHop.getMessage());
+        assertEquals(created.getWorkflowId(), firstHop.getWorkflowId());
+        assertEquals(1, firstHop.getCurrentIndex());
+        assertEquals("Delhi", firstHop.getCurrentCity());
+        verify(activity, times(1)).createShipment("SYNC-001");
+
+        releaseSecondHop.countDown();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.shipmentTemporal.service.audit;
+
+import com.example.shipmentTemporal.models.AuditEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditEventStreamTest {
+
+    private static final Instant T = Instant.ofEpochMilli(1_000);
+
+    private final InMemoryAuditProjectionStore store = new InMemoryAuditProjectionStore(10, Duration.ZERO);
+    private final AuditEventStream stream = new AuditEventStream(store);
+
+    @Test
+    void testStreamsBacklogFromOffsetThenNewEventsUntilCompleted() throws Exception {
+        publish(0, AuditEvent.created("S-1", T), AuditEvent.moved("Mumbai", "Delhi", T));
+
+        CompletableFuture<List<AuditEventStream.SequencedAuditEvent>> received =
+                stream.stream("shipment-1", 1).collectList().timeout(Duration.ofSeconds(5)).toFuture();
+        publish(2, AuditEvent.moved("Delhi", "Jaipur", T));
+        publish(3, AuditEvent.completed("Mumbai", "Bangalore", T));
+
+        List<AuditEventStream.SequencedAuditEvent> events = received.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(1L, 2L, 3L), events.stream().map(AuditEventStream.SequencedAuditEvent::sequence).toList());
+        assertEquals("Jaipur", events.get(1).event().getTo());
+        assertEquals(0, stream.watchedShipments());
+    }
+
+    @Test
+    void testSubscribersShareOneChannelPerShipment() throws Exception {
+        publish(0, AuditEvent.created("S-2", T));
+        List<CompletableFuture<List<AuditEventStream.SequencedAuditEvent>>> subscribers = IntStream
+                .range(0, 1_000)
+                .mapToObj(i -> stream.stream("shipment-1", 0).collectList().timeout(Duration.ofSeconds(5)).toFuture())
+                .toList();
+        assertEquals(1, stream.watchedShipments());
+
+        publish(1, AuditEvent.completed("Mumbai", "Delhi", T));
+
+        for (CompletableFuture<List<AuditEventStream.SequencedAuditEvent>> subscriber : subscribers) {
+            assertEquals(2, subscriber.get(5, TimeUnit.SECONDS).size());
+        }
+        assertEquals(0, stream.watchedShipments());
+    }
+
+    private void publish(long fromSequence, AuditEvent... events) {
+        store.append("shipment-1", fromSequence, List.of(events));
+        stream.published("shipment-1");
+    }
+}
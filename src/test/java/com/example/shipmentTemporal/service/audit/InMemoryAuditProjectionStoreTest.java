@@ -0,0 +1,66 @@
+package com.example.shipmentTemporal.service.audit;
+
+import com.example.shipmentTemporal.models.AuditEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryAuditProjectionStoreTest {
+
+    private static final Instant T = Instant.ofEpochMilli(1_000);
+
+    @Test
+    void testRetriedPublishIsAppendedOnceAndPaged() {
+        InMemoryAuditProjectionStore store = new InMemoryAuditProjectionStore(10, Duration.ZERO);
+        store.append("shipment-1", 0, List.of(AuditEvent.created("S-1", T), AuditEvent.moved("Mumbai", "Delhi", T)));
+        store.append("shipment-1", 1, List.of(AuditEvent.moved("Mumbai", "Delhi", T), AuditEvent.moved("Delhi", "Jaipur", T)));
+        store.append("shipment-1", 3, List.of(AuditEvent.completed("Jaipur", "Bangalore", T)));
+
+        AuditProjectionStore.AuditPage page = store.page("shipment-1", 1, 2).orElseThrow();
+
+        assertEquals(4, page.total());
+        assertEquals(2, page.events().size());
+        assertEquals("Mumbai", page.events().get(0).getFrom());
+        assertEquals("Jaipur", page.events().get(1).getTo());
+        assertTrue(store.page("shipment-1", 10, 2).orElseThrow().events().isEmpty());
+    }
+
+    @Test
+    void testGapDropsProjectionAndEvictionKeepsMostRecent() {
+        InMemoryAuditProjectionStore store = new InMemoryAuditProjectionStore(2, Duration.ZERO);
+        store.append("shipment-1", 0, List.of(AuditEvent.created("S-1", T)));
+        store.append("shipment-1", 5, List.of(AuditEvent.moved("Mumbai", "Delhi", T)));
+        assertTrue(store.page("shipment-1", 0, 10).isEmpty());
+
+        store.append("shipment-2", 0, List.of(AuditEvent.created("S-2", T)));
+        store.append("shipment-3", 0, List.of(AuditEvent.created("S-3", T)));
+        store.page("shipment-2", 0, 10);
+        store.append("shipment-4", 0, List.of(AuditEvent.created("S-4", T)));
+
+        assertTrue(store.page("shipment-2", 0, 10).isPresent());
+        assertTrue(store.page("shipment-3", 0, 10).isEmpty());
+        assertTrue(store.page("shipment-4", 0, 10).isPresent());
+    }
+
+    @Test
+    void testIdleProjectionOfARunningShipmentFallsBackToTheWorkflow() {
+        AtomicLong now = new AtomicLong();
+        InMemoryAuditProjectionStore store = new InMemoryAuditProjectionStore(10, Duration.ofMinutes(2), now::get);
+        store.append("shipment-1", 0, List.of(AuditEvent.created("S-1", T), AuditEvent.moved("Mumbai", "Delhi", T)));
+        store.append("shipment-2", 0, List.of(AuditEvent.created("S-2", T), AuditEvent.completed("Mumbai", "Delhi", T)));
+        assertTrue(store.page("shipment-1", 0, 10).isPresent());
+
+        // The shipment is published from another worker now; this prefix must not be served as the trail
+        now.addAndGet(Duration.ofMinutes(3).toNanos());
+        assertTrue(store.page("shipment-1", 0, 10).isEmpty());
+        assertEquals(2, store.page("shipment-2", 0, 10).orElseThrow().total());
+
+        store.append("shipment-1", 2, List.of(AuditEvent.moved("Delhi", "Jaipur", T)));
+        assertEquals(3, store.page("shipment-1", 0, 10).orElseThrow().total());
+    }
+}
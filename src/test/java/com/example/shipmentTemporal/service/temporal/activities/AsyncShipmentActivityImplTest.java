@@ -0,0 +1,102 @@
+package com.example.shipmentTemporal.service.temporal.activities;
+
+import com.example.shipmentTemporal.clients.DownstreamException;
+import com.example.shipmentTemporal.clients.ReactiveShipmentClient;
+import com.example.shipmentTemporal.clients.RouteProvider;
+import com.example.shipmentTemporal.clients.ShipmentClient;
+import com.example.shipmentTemporal.models.MoveRequest;
+import com.example.shipmentTemporal.models.RouteSnapshot;
+import com.example.shipmentTemporal.service.temporal.workflows.ShipmentWorkflow;
+import com.example.shipmentTemporal.service.temporal.workflows.ShipmentWorkflowImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.worker.Worker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AsyncShipmentActivityImplTest {
+
+    private TestWorkflowEnvironment testEnv;
+    private ReactiveShipmentClient apiClient;
+    private RouteProvider routeProvider;
+    private ShipmentCompensationActivity compensationActivity;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        testEnv = TestWorkflowEnvironment.newInstance();
+        apiClient = mock(ReactiveShipmentClient.class);
+        routeProvider = mock(RouteProvider.class);
+        compensationActivity = mock(ShipmentCompensationActivity.class, withSettings().withoutAnnotations());
+        meterRegistry = new SimpleMeterRegistry();
+
+        AsyncShipmentActivityImpl activity = new AsyncShipmentActivityImpl(apiClient, mock(ShipmentClient.class),
+                routeProvider, testEnv.getWorkflowClient().newActivityCompletionClient(), new ActivityMetrics(meterRegistry));
+        Worker workflowWorker = testEnv.newWorker("shipment-workflow-queue");
+        workflowWorker.registerWorkflowImplementationTypes(ShipmentWorkflowImpl.class);
+        // getRoute runs as a local activity on the workflow worker
+        workflowWorker.registerActivitiesImplementations(activity);
+        Worker activityWorker = testEnv.newWorker("shipment-activity-queue");
+        activityWorker.registerActivitiesImplementations(activity, compensationActivity);
+    }
+
+    @AfterEach
+    void tearDown() {
+        testEnv.close();
+    }
+
+    @Test
+    void testMovesCompleteWhenResponsesArrive() {
+        when(routeProvider.getRoute()).thenReturn(RouteSnapshot.of(List.of("Mumbai", "Delhi", "Jaipur")));
+        when(apiClient.createShipment(any())).thenReturn(Mono.just(7).delayElement(Duration.ofMillis(50)));
+        // The first Mumbai -> Delhi move is refused with a Retry-After; the retry goes through
+        when(apiClient.moveShipment(any(MoveRequest.class)))
+                .thenReturn(Mono.error(new DownstreamException("Failed to move shipment", 503, Duration.ofSeconds(1), null)))
+                .thenReturn(Mono.delay(Duration.ofMillis(50)).then());
+        testEnv.start();
+
+        ShipmentWorkflow workflow = testEnv.getWorkflowClient().newWorkflowStub(ShipmentWorkflow.class,
+                WorkflowOptions.newBuilder().setTaskQueue("shipment-workflow-queue").build());
+        String result = workflow.executeShipment("ASYNC-001", null);
+
+        assertTrue(result.contains("delivered successfully"));
+        verify(apiClient, times(3)).moveShipment(any(MoveRequest.class));
+        verify(compensationActivity, never()).compensateMove(anyInt(), anyString(), anyString());
+        assertEquals(1, meterRegistry.get("shipment.activity.execution")
+                .tag("activity", "moveShipment").tag("outcome", "failure").timer().count());
+        assertEquals(2, meterRegistry.get("shipment.activity.execution")
+                .tag("activity", "moveShipment").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void testRejectedMoveFailsTheAttemptWithoutRetry() {
+        when(routeProvider.getRoute()).thenReturn(RouteSnapshot.of(List.of("Mumbai", "Delhi")));
+        when(apiClient.createShipment(any())).thenReturn(Mono.just(8));
+        // A 422 must fail the activity for good; the second call only happens after the workflow's own backoff
+        when(apiClient.moveShipment(any(MoveRequest.class)))
+                .thenReturn(Mono.error(new DownstreamException("Failed to move shipment", 422, null, null)))
+                .thenReturn(Mono.empty());
+        testEnv.start();
+
+        ShipmentWorkflow workflow = testEnv.getWorkflowClient().newWorkflowStub(ShipmentWorkflow.class,
+                WorkflowOptions.newBuilder().setTaskQueue("shipment-workflow-queue").build());
+        String result = workflow.executeShipment("ASYNC-002", null);
+
+        assertTrue(result.contains("delivered successfully"));
+        verify(apiClient, times(2)).moveShipment(any(MoveRequest.class));
+        assertEquals(1, meterRegistry.get("shipment.activity.attempt")
+                .tag("activity", "moveShipment").tag("outcome", "failure").summary().count());
+        assertEquals(1.0, meterRegistry.get("shipment.activity.attempt")
+                .tag("activity", "moveShipment").tag("outcome", "success").summary().max());
+    }
+}
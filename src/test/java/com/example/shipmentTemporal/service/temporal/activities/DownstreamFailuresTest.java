@@ -0,0 +1,54 @@
+package com.example.shipmentTemporal.service.temporal.activities;
+
+import com.example.shipmentTemporal.clients.DownstreamException;
+import io.temporal.failure.ApplicationFailure;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DownstreamFailuresTest {
+
+    @Test
+    void testServiceUnavailableRetriesAfterServerHint() {
+        DownstreamException error = new DownstreamException("Failed to move shipment", 503, Duration.ofSeconds(2), null);
+
+        ApplicationFailure failure = (ApplicationFailure) DownstreamFailures.toActivityFailure(error);
+
+        assertFalse(failure.isNonRetryable());
+        assertEquals(Duration.ofSeconds(2), failure.getNextRetryDelay());
+        assertEquals(DownstreamFailures.DOWNSTREAM_UNAVAILABLE, failure.getType());
+    }
+
+    @Test
+    void testClientErrorsAreNotRetried() {
+        DownstreamException error = new DownstreamException("Failed to create shipment", 409, null, null);
+
+        ApplicationFailure failure = (ApplicationFailure) DownstreamFailures.toActivityFailure(error);
+
+        assertTrue(failure.isNonRetryable());
+        assertEquals(DownstreamFailures.DOWNSTREAM_REJECTED, failure.getType());
+    }
+
+    @Test
+    void testCompensationKeepsRetryingConflicts() {
+        DownstreamException error = new DownstreamException("Failed to move shipment", 409, null, null);
+
+        ApplicationFailure failure = (ApplicationFailure) DownstreamFailures.toActivityFailure(error, true);
+
+        assertFalse(failure.isNonRetryable());
+        assertNull(failure.getNextRetryDelay());
+    }
+
+    @Test
+    void testHopRunFailureCarriesTheReachedIndex() {
+        DownstreamException error = new DownstreamException("Failed to move shipment", 409, null, null);
+
+        ApplicationFailure failure = DownstreamFailures.toHopRunFailure(error, 3);
+
+        assertTrue(failure.isNonRetryable());
+        assertEquals(409, failure.getDetails().get(0, Integer.class));
+        assertEquals(3, failure.getDetails().get(1, Integer.class));
+    }
+}
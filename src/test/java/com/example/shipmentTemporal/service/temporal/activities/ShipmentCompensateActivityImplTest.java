@@ -0,0 +1,82 @@
+package com.example.shipmentTemporal.service.temporal.activities;
+
+import com.example.shipmentTemporal.clients.DownstreamException;
+import com.example.shipmentTemporal.clients.ReactiveShipmentClient;
+import com.example.shipmentTemporal.models.MoveRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.temporal.activity.ActivityOptions;
+import io.temporal.common.RetryOptions;
+import io.temporal.failure.ActivityFailure;
+import io.temporal.failure.ApplicationFailure;
+import io.temporal.failure.CanceledFailure;
+import io.temporal.testing.TestActivityEnvironment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ShipmentCompensateActivityImplTest {
+
+    private TestActivityEnvironment testEnv;
+    private ReactiveShipmentClient apiClient;
+    private ShipmentCompensationActivity activity;
+
+    @BeforeEach
+    void setUp() {
+        testEnv = TestActivityEnvironment.newInstance();
+        apiClient = mock(ReactiveShipmentClient.class);
+        testEnv.registerActivitiesImplementations(
+                new ShipmentCompensateActivityImpl(apiClient, new ActivityMetrics(new SimpleMeterRegistry())));
+        activity = testEnv.newActivityStub(ShipmentCompensationActivity.class, ActivityOptions.newBuilder()
+                .setStartToCloseTimeout(Duration.ofSeconds(10))
+                .setHeartbeatTimeout(Duration.ofMillis(300))
+                .setRetryOptions(RetryOptions.newBuilder().setMaximumAttempts(1).build())
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        testEnv.close();
+    }
+
+    @Test
+    void testSlowCallHeartbeatsUntilItCompletes() {
+        when(apiClient.moveShipment(any(MoveRequest.class))).thenReturn(Mono.delay(Duration.ofMillis(400)).then());
+        AtomicInteger heartbeats = new AtomicInteger();
+        testEnv.setActivityHeartbeatListener(Void.class, details -> heartbeats.incrementAndGet());
+
+        activity.compensateMove(7, "Jaipur", "Delhi");
+
+        assertTrue(heartbeats.get() >= 2, "heartbeats: " + heartbeats.get());
+    }
+
+    @Test
+    void testCancellationAbortsTheCall() {
+        AtomicBoolean aborted = new AtomicBoolean();
+        when(apiClient.moveShipment(any(MoveRequest.class)))
+                .thenReturn(Mono.<Void>never().doOnCancel(() -> aborted.set(true)));
+        testEnv.setActivityHeartbeatListener(Void.class, details -> testEnv.requestCancelActivity());
+
+        assertThrows(CanceledFailure.class, () -> activity.compensateMove(7, "Jaipur", "Delhi"));
+        assertTrue(aborted.get());
+    }
+
+    @Test
+    void testConflictIsRetryable() {
+        when(apiClient.moveShipment(any(MoveRequest.class)))
+                .thenReturn(Mono.error(new DownstreamException("Failed to move shipment", 409, null, null)));
+
+        ActivityFailure failure = assertThrows(ActivityFailure.class, () -> activity.compensateMove(7, "Jaipur", "Delhi"));
+
+        ApplicationFailure cause = assertInstanceOf(ApplicationFailure.class, failure.getCause());
+        assertFalse(cause.isNonRetryable());
+    }
+}